@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+/**
+ * An exception indicating that an exchange was not attempted because its circuit is open
+ */
+public final class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = -3529465071853281930L;
+
+    private final String circuit;
+
+    /**
+     * Creates a new instance
+     *
+     * @param circuit the open circuit
+     */
+    public CircuitOpenException(String circuit) {
+        super(String.format("Circuit %s is open", circuit));
+        this.circuit = circuit;
+    }
+
+    /**
+     * Returns the open circuit
+     */
+    public String getCircuit() {
+        return this.circuit;
+    }
+
+}
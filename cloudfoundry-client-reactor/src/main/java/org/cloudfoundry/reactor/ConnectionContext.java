@@ -17,24 +17,109 @@
 package org.cloudfoundry.reactor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cloudfoundry.reactor.util.JsonTypeRegistry;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClient;
 
+import java.util.Optional;
+
 /**
  * Common, reusable, connection context
  */
 public interface ConnectionContext {
 
+    /**
+     * The (optional) {@link CircuitBreaker} applied to every request
+     */
+    default Optional<CircuitBreaker> getCircuitBreaker() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link ConcurrencyLimiter} applied to every request
+     */
+    default Optional<ConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.empty();
+    }
+
     /**
      * The {@link HttpClient} to use
      */
     HttpClient getHttpClient();
 
+    /**
+     * The {@link JsonTypeRegistry} to use.  Built from the {@link ObjectMapper}.
+     */
+    JsonTypeRegistry getJsonTypeRegistry();
+
     /**
      * The {@link ObjectMapper} to use
      */
     ObjectMapper getObjectMapper();
 
+    /**
+     * The (optional) {@link PaginationPolicy} choosing the page size of listings whose requests do not specify one
+     */
+    default Optional<PaginationPolicy> getPaginationPolicy() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestCoalescer} applied to idempotent requests
+     */
+    default Optional<RequestCoalescer> getRequestCoalescer() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestHedger} applied to {@code GET} requests
+     */
+    default Optional<RequestHedger> getRequestHedger() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestObserver} notified of every request
+     */
+    default Optional<RequestObserver> getRequestObserver() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestPacer} applied to every request
+     */
+    default Optional<RequestPacer> getRequestPacer() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link RequestPriority} of every request, used by the {@link RequestPacer}
+     */
+    default Optional<RequestPriority> getRequestPriority() {
+        return Optional.empty();
+    }
+
+    /**
+     * The (optional) {@link ResponseCache} consulted by requests for decoded responses
+     */
+    default Optional<ResponseCache> getResponseCache() {
+        return Optional.empty();
+    }
+
+    /**
+     * Whether to request compressed response payloads.  Defaults to {@code false}.
+     */
+    default Boolean getResponseCompression() {
+        return false;
+    }
+
+    /**
+     * The (optional) {@link RetryPolicy} applied to idempotent requests
+     */
+    default Optional<RetryPolicy> getRetryPolicy() {
+        return Optional.empty();
+    }
+
     /**
      * The normalized API root
      */
@@ -47,4 +132,11 @@ public interface ConnectionContext {
      */
     Mono<String> getRoot(String key);
 
+    /**
+     * The {@link HttpClient} to use for long-lived streams.  Defaults to the {@link HttpClient} used for every other request.
+     */
+    default HttpClient getStreamingHttpClient() {
+        return getHttpClient();
+    }
+
 }
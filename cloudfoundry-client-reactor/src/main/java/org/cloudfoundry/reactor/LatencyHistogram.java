@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in microseconds, using the log-linear bucketing of HdrHistogram.  Values are recorded to within 1% up to roughly 19 hours.
+ */
+final class LatencyHistogram {
+
+    private static final long MAXIMUM = (1L << 36) - 1;
+
+    private static final int SUB_BUCKET_BITS = 8;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(getIndex(MAXIMUM) + 1);
+
+    private final AtomicLong maximum = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    long getCount() {
+        return this.total.get();
+    }
+
+    long getMaximum() {
+        return this.maximum.get();
+    }
+
+    long getValueAtPercentile(double percentile) {
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * this.total.get()));
+        long cumulative = 0;
+
+        for (int i = 0; i < this.counts.length(); i++) {
+            cumulative += this.counts.get(i);
+
+            if (cumulative >= target) {
+                return Math.min(getHighestEquivalentValue(i), this.maximum.get());
+            }
+        }
+
+        return this.maximum.get();
+    }
+
+    void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAXIMUM));
+
+        this.counts.incrementAndGet(getIndex(clamped));
+        this.total.incrementAndGet();
+        this.maximum.accumulateAndGet(clamped, Math::max);
+    }
+
+    private static long getHighestEquivalentValue(int index) {
+        int bucket = index < SUB_BUCKET_COUNT ? 0 : (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = index - bucket * SUB_BUCKET_HALF_COUNT;
+
+        return ((subBucket + 1) << bucket) - 1;
+    }
+
+    private static int getIndex(long value) {
+        int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return bucket * SUB_BUCKET_HALF_COUNT + (int) (value >>> bucket);
+    }
+
+}
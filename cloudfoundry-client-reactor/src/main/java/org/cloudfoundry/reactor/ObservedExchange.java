@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * An HTTP exchange reported to a {@link RequestObserver}.  Values reflect the state of the exchange at the time of the call.
+ */
+public interface ObservedExchange {
+
+    /**
+     * The number of payload bytes received
+     */
+    long getBytesIn();
+
+    /**
+     * The number of payload bytes sent
+     */
+    long getBytesOut();
+
+    /**
+     * The time since the exchange started
+     */
+    Duration getElapsed();
+
+    /**
+     * The HTTP method of the exchange
+     */
+    String getMethod();
+
+    /**
+     * The path of the exchange, with identifiers replaced by {@code {id}}
+     */
+    String getPath();
+
+    /**
+     * The number of times the exchange has been retried
+     */
+    int getRetries();
+
+    /**
+     * The status code of the response, if one has been received
+     */
+    Optional<Integer> getStatus();
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import java.time.Duration;
+
+/**
+ * A policy that chooses the page size of listings whose requests do not specify one
+ */
+public interface PaginationPolicy {
+
+    /**
+     * Chooses the page size of a new listing.  The size is chosen once per listing, and every page of the listing is requested with the same size, otherwise resources would be skipped or repeated.
+     *
+     * @param endpoint the path of the endpoint being listed
+     * @param maximum  the maximum page size supported by the endpoint
+     * @return the page size
+     */
+    int getPageSize(String endpoint, int maximum);
+
+    /**
+     * Records a page that has been read in full
+     *
+     * @param endpoint  the path of the endpoint being listed
+     * @param pageSize  the page size requested
+     * @param resources the number of resources decoded from the page
+     * @param elapsed   the time taken to receive the response
+     */
+    void onPage(String endpoint, int pageSize, int resources, Duration elapsed);
+
+}
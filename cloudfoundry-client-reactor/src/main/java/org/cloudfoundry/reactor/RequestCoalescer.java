@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A coalescer of identical concurrent requests
+ */
+public interface RequestCoalescer {
+
+    /**
+     * Coalesces a request.  Subscribers to requests with equal keys that overlap in time may share a single subscription to one of the requests and receive its result.  The requests of the other
+     * subscribers are not subscribed to, so any work that must happen for every subscriber belongs downstream of the coalesced request.
+     *
+     * @param key     the key identifying equivalent requests
+     * @param request the request
+     * @param <T>     the type of the result of the request
+     * @return the coalesced request
+     */
+    <T> Mono<T> coalesce(Object key, Mono<T> request);
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+/**
+ * A hedger of idempotent HTTP exchanges, which may race duplicate exchanges against a slow one
+ */
+public interface RequestHedger {
+
+    /**
+     * Hedges an exchange.  The exchange may be subscribed to more than once, each subscription making a separate request, and the first response is used.
+     *
+     * @param uri      the URI of the exchange
+     * @param exchange the exchange
+     * @return the hedged exchange
+     */
+    Mono<HttpClientResponse> hedge(String uri, Mono<HttpClientResponse> exchange);
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+/**
+ * An observer of the HTTP exchanges made by a client.  Methods are called on I/O threads and must not block.
+ */
+public interface RequestObserver {
+
+    /**
+     * Called when the whole response has been received
+     *
+     * @param exchange the exchange
+     */
+    void onComplete(ObservedExchange exchange);
+
+    /**
+     * Called when an exchange fails without receiving the whole response
+     *
+     * @param exchange the exchange
+     * @param error    the cause of the failure
+     */
+    void onError(ObservedExchange exchange, Throwable error);
+
+    /**
+     * Called when the status and headers of the response have been received
+     *
+     * @param exchange the exchange
+     */
+    void onFirstByte(ObservedExchange exchange);
+
+    /**
+     * Called when an exchange starts
+     *
+     * @param exchange the exchange
+     */
+    void onStart(ObservedExchange exchange);
+
+}
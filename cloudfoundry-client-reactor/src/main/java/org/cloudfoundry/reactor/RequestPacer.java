@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.util.Optional;
+
+/**
+ * A pacer of the HTTP exchanges made on behalf of a user
+ */
+public interface RequestPacer {
+
+    /**
+     * Paces an exchange whose priority is not known.  The exchange is only subscribed to once the pacer allows it to proceed.
+     *
+     * @param tokenProvider the {@link TokenProvider} identifying the user the exchange is made on behalf of
+     * @param uri           the URI of the exchange
+     * @param exchange      the exchange
+     * @return the paced exchange
+     */
+    default Mono<HttpClientResponse> pace(TokenProvider tokenProvider, String uri, Mono<HttpClientResponse> exchange) {
+        return pace(tokenProvider, uri, Optional.empty(), exchange);
+    }
+
+    /**
+     * Paces an exchange.  The exchange is only subscribed to once the pacer allows it to proceed.
+     *
+     * @param tokenProvider the {@link TokenProvider} identifying the user the exchange is made on behalf of
+     * @param uri           the URI of the exchange
+     * @param priority      the (optional) priority of the exchange.  When absent, the pacer may infer one.
+     * @param exchange      the exchange
+     * @return the paced exchange
+     */
+    Mono<HttpClientResponse> pace(TokenProvider tokenProvider, String uri, Optional<RequestPriority> priority, Mono<HttpClientResponse> exchange);
+
+}
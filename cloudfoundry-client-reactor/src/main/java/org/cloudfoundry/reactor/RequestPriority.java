@@ -0,0 +1,34 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+/**
+ * The priority of the requests made through a {@link ConnectionContext}, used by a {@link RequestPacer} to decide which requests proceed first
+ */
+public enum RequestPriority {
+
+    /**
+     * Requests made by batch work, such as bulk listings and reconciliation loops, that may wait for interactive requests
+     */
+    BACKGROUND,
+
+    /**
+     * Requests that someone is waiting for
+     */
+    INTERACTIVE
+
+}
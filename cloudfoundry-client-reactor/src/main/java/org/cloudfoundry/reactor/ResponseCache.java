@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import java.util.Optional;
+
+/**
+ * A cache of decoded HTTP responses
+ */
+public interface ResponseCache {
+
+    /**
+     * Returns the cached response to a request
+     *
+     * @param uri       the URI of the request
+     * @param principal the principal the request is made on behalf of, including the scopes granted to it
+     * @return the cached response, or empty if there is none
+     */
+    Optional<CachedResponse> get(String uri, String principal);
+
+    /**
+     * Offers a response to the cache.  The cache may choose not to store it.
+     *
+     * @param uri       the URI of the request
+     * @param principal the principal the request is made on behalf of, including the scopes granted to it
+     * @param response  the response
+     */
+    void put(String uri, String principal, CachedResponse response);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.util.function.Function;
+
+/**
+ * A policy for retrying failed idempotent HTTP exchanges
+ */
+public interface RetryPolicy {
+
+    /**
+     * Retries an exchange.  Each attempt is made by applying the exchange function to the number of attempts that preceded it.
+     *
+     * @param uri      the URI of the exchange
+     * @param exchange a function from the number of previous attempts to an attempt of the exchange
+     * @return the retried exchange
+     */
+    Mono<HttpClientResponse> retry(String uri, Function<Integer, Mono<HttpClientResponse>> exchange);
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A token bucket that limits an extra activity, such as retrying or hedging, to a fraction of exchanges.  The bucket starts full, each exchange deposits the ratio, and each use of the activity
+ * withdraws one token while at least one remains.
+ */
+final class TokenBucket {
+
+    private final DoubleSupplier capacity;
+
+    private final DoubleSupplier ratio;
+
+    private double spent = 0;
+
+    /**
+     * Creates a new bucket.  The capacity and ratio are read on each use, so that they can be supplied by an immutable value that is still being constructed.
+     *
+     * @param capacity the largest number of tokens held by the bucket, and the number it starts with
+     * @param ratio    the number of tokens each exchange deposits
+     */
+    TokenBucket(DoubleSupplier capacity, DoubleSupplier ratio) {
+        this.capacity = capacity;
+        this.ratio = ratio;
+    }
+
+    synchronized void deposit() {
+        this.spent = Math.max(0, this.spent - this.ratio.getAsDouble());
+    }
+
+    synchronized double getRemaining() {
+        return this.capacity.getAsDouble() - this.spent;
+    }
+
+    synchronized boolean withdraw() {
+        if (this.capacity.getAsDouble() - this.spent < 1) {
+            return false;
+        }
+
+        this.spent++;
+        return true;
+    }
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.cloudfoundry.reactor.util.PathTemplates;
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+
+/**
+ * A {@link ConcurrencyLimiter} that adapts a separate limit for each endpoint group using additive-increase/multiplicative-decrease.  A group's limit grows by roughly one for each limit's worth of
+ * exchanges that respond within the latency threshold, and is multiplied by the backoff ratio whenever an exchange responds slower than the threshold or with {@code 429 Too Many Requests} or
+ * {@code 503 Service Unavailable}.  Exchanges beyond the limit wait, in order, for an earlier exchange of the group to receive its response.
+ * <p>
+ * An endpoint group is the host and first two segments of the path template of a URI, for example {@code api.run.pivotal.io/v2/apps} or {@code uaa.run.pivotal.io/Users/{id}}.  Once there are more
+ * than a thousand groups, groups with no exchanges in flight or waiting are forgotten.
+ */
+@Value.Immutable
+abstract class _AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private static final int MAXIMUM_ENDPOINT_GROUPS = 1_000;
+
+    private final ConcurrentMap<String, EndpointGroup> endpointGroups = new ConcurrentHashMap<>();
+
+    /**
+     * The factor a limit is multiplied by when it is reduced.  Defaults to {@code 0.9}.
+     */
+    @Value.Default
+    public Double getBackoffRatio() {
+        return 0.9;
+    }
+
+    /**
+     * Returns the endpoint groups that have been used
+     */
+    public final Set<String> getEndpointGroups() {
+        return this.endpointGroups.keySet();
+    }
+
+    /**
+     * The initial limit of each endpoint group.  Defaults to {@code 20}.
+     */
+    @Value.Default
+    public Integer getInitialLimit() {
+        return 20;
+    }
+
+    /**
+     * The response latency above which a limit is reduced.  Defaults to 2 seconds.
+     */
+    @Value.Default
+    public Duration getLatencyThreshold() {
+        return Duration.ofSeconds(2);
+    }
+
+    /**
+     * Returns the current limit of an endpoint group
+     *
+     * @param endpointGroup the endpoint group
+     * @return the current limit of the endpoint group
+     */
+    public final int getLimit(String endpointGroup) {
+        EndpointGroup group = this.endpointGroups.get(endpointGroup);
+        return group == null ? getInitialLimit() : group.getLimit();
+    }
+
+    /**
+     * The largest limit of each endpoint group.  Defaults to {@code 200}.
+     */
+    @Value.Default
+    public Integer getMaximumLimit() {
+        return 200;
+    }
+
+    /**
+     * The smallest limit of each endpoint group.  Defaults to {@code 1}.
+     */
+    @Value.Default
+    public Integer getMinimumLimit() {
+        return 1;
+    }
+
+    /**
+     * Returns the number of exchanges of an endpoint group waiting to proceed
+     *
+     * @param endpointGroup the endpoint group
+     * @return the number of waiting exchanges
+     */
+    public final int getQueueDepth(String endpointGroup) {
+        EndpointGroup group = this.endpointGroups.get(endpointGroup);
+        return group == null ? 0 : group.getQueueDepth();
+    }
+
+    @Override
+    public final Mono<HttpClientResponse> limit(String uri, Mono<HttpClientResponse> exchange) {
+        EndpointGroup group = this.endpointGroups.computeIfAbsent(getEndpointGroup(uri), key -> new EndpointGroup());
+
+        if (this.endpointGroups.size() > MAXIMUM_ENDPOINT_GROUPS) {
+            this.endpointGroups.values().removeIf(endpointGroup -> endpointGroup != group && endpointGroup.isIdle());
+        }
+
+        return Mono.defer(() -> {
+            Permit permit = new Permit(group);
+
+            return Mono.<Permit>create(permit::acquire)
+                .then(p -> {
+                    long start = System.nanoTime();
+                    return exchange.doOnNext(response -> group.onResponse(response.status().code(), System.nanoTime() - start));
+                })
+                .doFinally(signal -> permit.release());
+        });
+    }
+
+    @Value.Check
+    void check() {
+        if (getMinimumLimit() < 1 || getMinimumLimit() > getInitialLimit() || getInitialLimit() > getMaximumLimit()) {
+            throw new IllegalStateException("limits must satisfy 1 <= minimum <= initial <= maximum");
+        }
+
+        if (getBackoffRatio() <= 0 || getBackoffRatio() >= 1) {
+            throw new IllegalStateException("backoff ratio must be between 0 and 1");
+        }
+    }
+
+    private static String getEndpointGroup(String uri) {
+        URI parsed = URI.create(uri);
+        String[] segments = PathTemplates.getPathTemplate(parsed).split("/", 4);
+
+        StringBuilder endpointGroup = new StringBuilder(String.valueOf(parsed.getRawAuthority()));
+        for (int i = 1; i < Math.min(segments.length, 3); i++) {
+            endpointGroup.append('/').append(segments[i]);
+        }
+
+        return endpointGroup.toString();
+    }
+
+    private final class EndpointGroup {
+
+        private final Queue<Permit> waiting = new ArrayDeque<>();
+
+        private int inFlight = 0;
+
+        private double limit = getInitialLimit();
+
+        private synchronized int getLimit() {
+            return (int) this.limit;
+        }
+
+        private synchronized int getQueueDepth() {
+            return this.waiting.size();
+        }
+
+        private synchronized boolean isIdle() {
+            return this.inFlight == 0 && this.waiting.isEmpty();
+        }
+
+        private void acquire(Permit permit) {
+            boolean granted;
+
+            synchronized (this) {
+                granted = this.inFlight < (int) this.limit && this.waiting.isEmpty() && permit.grant();
+
+                if (granted) {
+                    this.inFlight++;
+                } else {
+                    this.waiting.add(permit);
+                }
+            }
+
+            if (granted) {
+                permit.notifyGranted();
+            }
+        }
+
+        private void cancel(Permit permit) {
+            synchronized (this) {
+                this.waiting.remove(permit);
+            }
+        }
+
+        private void onResponse(int statusCode, long latency) {
+            synchronized (this) {
+                if (statusCode == TOO_MANY_REQUESTS.code() || statusCode == SERVICE_UNAVAILABLE.code() || latency > getLatencyThreshold().toNanos()) {
+                    this.limit = Math.max(getMinimumLimit(), this.limit * getBackoffRatio());
+                } else {
+                    this.limit = Math.min(getMaximumLimit(), this.limit + 1 / this.limit);
+                }
+            }
+
+            grantWaiting();
+        }
+
+        private void release() {
+            synchronized (this) {
+                this.inFlight--;
+            }
+
+            grantWaiting();
+        }
+
+        private void grantWaiting() {
+            List<Permit> granted = new ArrayList<>();
+
+            synchronized (this) {
+                while (this.inFlight < (int) this.limit && !this.waiting.isEmpty()) {
+                    Permit permit = this.waiting.poll();
+
+                    if (permit.grant()) {
+                        this.inFlight++;
+                        granted.add(permit);
+                    }
+                }
+            }
+
+            granted.forEach(Permit::notifyGranted);
+        }
+
+    }
+
+    private static final class Permit {
+
+        private static final int DONE = 2;
+
+        private static final int GRANTED = 1;
+
+        private static final int WAITING = 0;
+
+        private final EndpointGroup group;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private volatile MonoSink<Permit> sink;
+
+        private Permit(EndpointGroup group) {
+            this.group = group;
+        }
+
+        private void acquire(MonoSink<Permit> sink) {
+            this.sink = sink;
+            this.group.acquire(this);
+        }
+
+        private boolean grant() {
+            return this.state.compareAndSet(WAITING, GRANTED);
+        }
+
+        private void notifyGranted() {
+            this.sink.success(this);
+        }
+
+        private void release() {
+            if (this.state.compareAndSet(WAITING, DONE)) {
+                this.group.cancel(this);
+            } else if (this.state.compareAndSet(GRANTED, DONE)) {
+                this.group.release();
+            }
+        }
+
+    }
+
+}
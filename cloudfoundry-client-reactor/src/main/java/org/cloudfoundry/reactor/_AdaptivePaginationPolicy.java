@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link PaginationPolicy} that starts each endpoint at its maximum page size and adapts it to the observed latency per resource.  The page size of an endpoint shrinks when a full page would
+ * exceed the latency budget and grows back while it stays within half of it.
+ */
+@Value.Immutable
+abstract class _AdaptivePaginationPolicy implements PaginationPolicy {
+
+    private final ConcurrentMap<String, Integer> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum response latency before the page size is reduced.  Defaults to 5 seconds.
+     */
+    @Value.Default
+    public Duration getLatencyBudget() {
+        return Duration.ofSeconds(5);
+    }
+
+    /**
+     * The smallest page size that will be chosen.  Defaults to {@code 10}.
+     */
+    @Value.Default
+    public Integer getMinimumPageSize() {
+        return 10;
+    }
+
+    @Override
+    public final int getPageSize(String endpoint, int maximum) {
+        return Math.min(maximum, this.endpoints.getOrDefault(endpoint, maximum));
+    }
+
+    @Override
+    public final void onPage(String endpoint, int pageSize, int resources, Duration elapsed) {
+        if (resources <= 0) {
+            return;
+        }
+
+        double estimate = (double) Math.max(1, elapsed.toNanos()) * pageSize / Math.min(pageSize, resources);
+        double ratio = getLatencyBudget().toNanos() / estimate;
+
+        int next;
+        if (ratio < 1) {
+            next = Math.max(getMinimumPageSize(), (int) (pageSize * ratio));
+        } else if (ratio >= 2) {
+            next = pageSize > Integer.MAX_VALUE / 2 ? pageSize : pageSize * 2;
+        } else {
+            next = pageSize;
+        }
+
+        this.endpoints.put(endpoint, next);
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * A decoded HTTP response held by a {@link ResponseCache}
+ */
+@Value.Immutable
+abstract class _CachedResponse {
+
+    /**
+     * The decoded payload of the response
+     */
+    public abstract Object getBody();
+
+    /**
+     * The value of the {@code ETag} header of the response
+     */
+    public abstract Optional<String> getEntityTag();
+
+    /**
+     * The value of the {@code Last-Modified} header of the response
+     */
+    public abstract Optional<String> getLastModified();
+
+    /**
+     * Whether the response can be revalidated with a conditional request
+     */
+    public final boolean isRevalidatable() {
+        return getEntityTag().isPresent() || getLastModified().isPresent();
+    }
+
+}
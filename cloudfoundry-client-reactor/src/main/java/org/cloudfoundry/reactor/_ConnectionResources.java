@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.cloudfoundry.reactor.util.EvictingPoolResources;
+import org.cloudfoundry.reactor.util.InstrumentedPoolResources;
+import org.cloudfoundry.reactor.util.LazyLoopResources;
+import org.immutables.value.Value;
+import reactor.core.Disposable;
+import reactor.ipc.netty.resources.LoopResources;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The event loops, connection pools and buffer allocator used by {@link DefaultConnectionContext}s.  A single instance can be shared by many contexts, for example one per Cloud Foundry
+ * instance, so that they share threads and memory rather than each creating their own.  Connection pools are kept per host, and Reactor Netty configures all of a pool's connections like
+ * those of the context that connected first.  Contexts therefore only share connections when their transport settings (SSL trust, proxy and socket options) are equal, and otherwise get pools of
+ * their own.
+ * <p>
+ * A shared instance must be disposed of once every context that uses it is no longer needed.
+ */
+@Value.Immutable
+abstract class _ConnectionResources implements Disposable {
+
+    private final Map<Object, InstrumentedPoolResources> connectionPools = new ConcurrentHashMap<>();
+
+    private final Map<Object, InstrumentedPoolResources> streamingConnectionPools = new ConcurrentHashMap<>();
+
+    @Override
+    public final void dispose() {
+        this.connectionPools.values().forEach(InstrumentedPoolResources::dispose);
+        this.streamingConnectionPools.values().forEach(InstrumentedPoolResources::dispose);
+        getLoopResources().ifPresent(LoopResources::dispose);
+        getStreamingLoopResources().dispose();
+    }
+
+    /**
+     * The allocator of the buffers used by connections.  Defaults to the pooled Netty allocator, preferring direct buffers, configured with any allocator settings.
+     */
+    @Value.Default
+    public ByteBufAllocator getAllocator() {
+        if (!getAllocatorDirectArenaCount().isPresent() && !getAllocatorMaxOrder().isPresent() && !getAllocatorPageSize().isPresent()) {
+            return PooledByteBufAllocator.DEFAULT;
+        }
+
+        return new PooledByteBufAllocator(true, PooledByteBufAllocator.defaultNumHeapArena(), getAllocatorDirectArenaCount().orElse(PooledByteBufAllocator.defaultNumDirectArena()),
+            getAllocatorPageSize().orElse(PooledByteBufAllocator.defaultPageSize()), getAllocatorMaxOrder().orElse(PooledByteBufAllocator.defaultMaxOrder()));
+    }
+
+    /**
+     * The (optional) number of direct memory arenas of the default allocator.  Fewer arenas use less memory, at the cost of more contention between event loop threads.
+     */
+    public abstract Optional<Integer> getAllocatorDirectArenaCount();
+
+    /**
+     * The (optional) maximum order of the default allocator.  Each arena allocates chunks of {@code pageSize << maxOrder} bytes.
+     */
+    public abstract Optional<Integer> getAllocatorMaxOrder();
+
+    /**
+     * The (optional) page size of the default allocator
+     */
+    public abstract Optional<Integer> getAllocatorPageSize();
+
+    /**
+     * The (optional) maximum time a request/response connection may be idle in the pool before it is closed.  Should be shorter than the idle timeout of the servers and load balancers in front of
+     * them.
+     */
+    public abstract Optional<Duration> getConnectionMaxIdleTime();
+
+    /**
+     * The (optional) maximum time a request/response connection may be open before it is closed on release
+     */
+    public abstract Optional<Duration> getConnectionMaxLifetime();
+
+    /**
+     * The maximum number of connections per host for request/response traffic.  Defaults to twice the number of available processors.
+     */
+    @Value.Default
+    public Integer getConnectionPoolSize() {
+        return 2 * PoolResources.DEFAULT_POOL_MAX_CONNECTION;
+    }
+
+    /**
+     * The event loops for request/response traffic.  Absent when no thread count is configured, in which case the default Reactor Netty event loops are used.
+     */
+    @Value.Auxiliary
+    @Value.Derived
+    public Optional<LoopResources> getLoopResources() {
+        return getThreadCount().map(threadCount -> LoopResources.create("cloudfoundry-client", threadCount, true));
+    }
+
+    /**
+     * The maximum time to wait for a pooled streaming connection to become available
+     */
+    public abstract Optional<Duration> getStreamingConnectionPoolAcquireTimeout();
+
+    /**
+     * The maximum number of concurrent streams per host.  Defaults to the number of available processors.
+     */
+    @Value.Default
+    public Integer getStreamingConnectionPoolSize() {
+        return PoolResources.DEFAULT_POOL_MAX_CONNECTION;
+    }
+
+    /**
+     * The event loops for long-lived streams.  The loops are only created when the first stream connects, so that instances, and their copies, that never stream do not create them.
+     */
+    @Value.Auxiliary
+    @Value.Derived
+    public LazyLoopResources getStreamingLoopResources() {
+        return new LazyLoopResources(() -> LoopResources.create("cloudfoundry-client-streaming", getStreamingThreadCount(), true));
+    }
+
+    /**
+     * The number of event loop threads for long-lived streams.  Defaults to half the default number of event loop threads.
+     */
+    @Value.Default
+    public Integer getStreamingThreadCount() {
+        return Math.max(1, LoopResources.DEFAULT_IO_WORKER_COUNT / 2);
+    }
+
+    /**
+     * The (optional) number of event loop threads for request/response traffic.  When absent, the default Reactor Netty event loops are used.
+     */
+    public abstract Optional<Integer> getThreadCount();
+
+    /**
+     * Returns the pool of connections for the request/response traffic of contexts with the given transport settings
+     *
+     * @param transport the transport settings of a context, compared for equality
+     * @return the pool of connections
+     */
+    final InstrumentedPoolResources getConnectionPool(Object transport) {
+        return this.connectionPools.computeIfAbsent(transport, key -> {
+            PoolResources poolResources = PoolResources.fixed("cloudfoundry-client", getConnectionPoolSize());
+
+            if (getConnectionMaxIdleTime().isPresent() || getConnectionMaxLifetime().isPresent()) {
+                poolResources = new EvictingPoolResources(poolResources, getConnectionMaxIdleTime(), getConnectionMaxLifetime());
+            }
+
+            return new InstrumentedPoolResources("cloudfoundry-client", poolResources);
+        });
+    }
+
+    /**
+     * Returns the pool of connections for the long-lived streams of contexts with the given transport settings
+     *
+     * @param transport the transport settings of a context, compared for equality
+     * @return the pool of connections
+     */
+    final InstrumentedPoolResources getStreamingConnectionPool(Object transport) {
+        return this.streamingConnectionPools.computeIfAbsent(transport, key -> new InstrumentedPoolResources("cloudfoundry-client-streaming",
+            PoolResources.fixed("cloudfoundry-client-streaming", getStreamingConnectionPoolSize(),
+                getStreamingConnectionPoolAcquireTimeout().map(Duration::toMillis).orElse(PoolResources.DEFAULT_POOL_ACQUIRE_TIMEOUT))));
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.cloudfoundry.reactor.util.PathTemplates;
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientException;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.netty.handler.codec.http.HttpStatusClass.SERVER_ERROR;
+
+/**
+ * A {@link CircuitBreaker} that opens a circuit after a number of consecutive failures.  A failure is an exchange that fails with an I/O error or responds with a {@code 5xx} status.  While a
+ * circuit is open its exchanges fail immediately with a {@link CircuitOpenException}.  Once the open duration has passed the circuit is half-open, allowing a limited number of probe exchanges
+ * through: the first to succeed closes the circuit and the first to fail opens it again.  Failures of exchanges that were allowed before the circuit opened are ignored.
+ * <p>
+ * Each root has its own circuit, for example {@code https://api.run.pivotal.io}.  Circuits may also be kept for each path template within a root, for example
+ * {@code https://api.run.pivotal.io /v2/apps/{id}/stats}.  At most 1000 circuits are kept, forgetting closed circuits without failures first.
+ */
+@Value.Immutable
+abstract class _ConsecutiveFailureCircuitBreaker implements CircuitBreaker {
+
+    private static final int MAXIMUM_CIRCUITS = 1_000;
+
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the circuits that have been used
+     */
+    public final Set<String> getCircuits() {
+        return this.circuits.keySet();
+    }
+
+    /**
+     * The number of consecutive failures that open a circuit.  Defaults to {@code 5}.
+     */
+    @Value.Default
+    public Integer getFailureThreshold() {
+        return 5;
+    }
+
+    /**
+     * The number of probe exchanges a half-open circuit allows at once.  Defaults to {@code 1}.
+     */
+    @Value.Default
+    public Integer getHalfOpenProbes() {
+        return 1;
+    }
+
+    /**
+     * The time a circuit stays open before allowing probe exchanges.  Defaults to 10 seconds.
+     */
+    @Value.Default
+    public Duration getOpenDuration() {
+        return Duration.ofSeconds(10);
+    }
+
+    /**
+     * Whether circuits are kept for each path template within a root.  Defaults to {@code false}.
+     */
+    @Value.Default
+    public Boolean getPathTemplates() {
+        return false;
+    }
+
+    /**
+     * Returns whether a circuit is open, failing exchanges without attempting them
+     *
+     * @param circuit the circuit
+     * @return {@code true} if the circuit is open
+     */
+    public final boolean isOpen(String circuit) {
+        Circuit c = this.circuits.get(circuit);
+        return c != null && c.isOpen();
+    }
+
+    @Override
+    public final Mono<HttpClientResponse> protect(String root, String uri, Mono<HttpClientResponse> exchange) {
+        String key = getCircuit(root, uri);
+        Circuit circuit = this.circuits.computeIfAbsent(key, k -> new Circuit());
+
+        if (this.circuits.size() > MAXIMUM_CIRCUITS) {
+            this.circuits.values().removeIf(c -> c != circuit && c.isHealthy());
+
+            if (this.circuits.size() > MAXIMUM_CIRCUITS) {
+                this.circuits.values().removeIf(c -> c != circuit);
+            }
+        }
+
+        return Mono.defer(() -> {
+            Permit permit = circuit.acquire();
+
+            if (permit == Permit.DENIED) {
+                return Mono.error(new CircuitOpenException(key));
+            }
+
+            AtomicBoolean settled = new AtomicBoolean();
+
+            return exchange
+                .doOnNext(response -> {
+                    if (settled.compareAndSet(false, true)) {
+                        circuit.onOutcome(permit, !isFailure(response.status()));
+                    }
+                })
+                .doOnError(error -> {
+                    if (settled.compareAndSet(false, true)) {
+                        circuit.onOutcome(permit, !isFailure(error));
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (settled.compareAndSet(false, true) && permit == Permit.PROBE) {
+                        circuit.releaseProbe();
+                    }
+                });
+        });
+    }
+
+    @Value.Check
+    void check() {
+        if (getFailureThreshold() < 1 || getHalfOpenProbes() < 1 || getOpenDuration().isNegative()) {
+            throw new IllegalStateException("failure threshold and half-open probes must be at least 1, and open duration must not be negative");
+        }
+    }
+
+    private String getCircuit(String root, String uri) {
+        return getPathTemplates() ? String.format("%s %s", root, PathTemplates.getPathTemplate(uri)) : root;
+    }
+
+    private static boolean isFailure(HttpResponseStatus status) {
+        return status.codeClass() == SERVER_ERROR;
+    }
+
+    private static boolean isFailure(Throwable error) {
+        return !(error instanceof HttpClientException) || isFailure(((HttpClientException) error).status());
+    }
+
+    private final class Circuit {
+
+        private int failures = 0;
+
+        private long openedAt = 0;
+
+        private boolean open = false;
+
+        private int probes = 0;
+
+        private synchronized boolean isHealthy() {
+            return !this.open && this.failures == 0;
+        }
+
+        private synchronized boolean isOpen() {
+            return this.open && System.nanoTime() - this.openedAt < getOpenDuration().toNanos();
+        }
+
+        private synchronized Permit acquire() {
+            if (!this.open) {
+                return Permit.GRANTED;
+            }
+
+            if (System.nanoTime() - this.openedAt < getOpenDuration().toNanos() || this.probes >= getHalfOpenProbes()) {
+                return Permit.DENIED;
+            }
+
+            this.probes++;
+            return Permit.PROBE;
+        }
+
+        private synchronized void onOutcome(Permit permit, boolean success) {
+            if (success) {
+                this.failures = 0;
+                this.open = false;
+                this.probes = 0;
+            } else if (this.open ? permit == Permit.PROBE : ++this.failures >= getFailureThreshold()) {
+                this.failures = 0;
+                this.open = true;
+                this.openedAt = System.nanoTime();
+                this.probes = 0;
+            }
+        }
+
+        private synchronized void releaseProbe() {
+            this.probes = Math.max(0, this.probes - 1);
+        }
+
+    }
+
+    private enum Permit {
+
+        DENIED,
+
+        GRANTED,
+
+        PROBE
+
+    }
+
+}
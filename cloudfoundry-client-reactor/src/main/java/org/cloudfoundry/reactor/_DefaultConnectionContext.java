@@ -17,35 +17,52 @@
 package org.cloudfoundry.reactor;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslProvider;
 import org.cloudfoundry.reactor.util.DefaultSslCertificateTruster;
+import org.cloudfoundry.reactor.util.InstrumentedPoolResources;
 import org.cloudfoundry.reactor.util.JsonCodec;
+import org.cloudfoundry.reactor.util.JsonTypeRegistry;
 import org.cloudfoundry.reactor.util.NetworkLogging;
+import org.cloudfoundry.reactor.util.RefreshingCache;
 import org.cloudfoundry.reactor.util.SslCertificateTruster;
 import org.cloudfoundry.reactor.util.StaticTrustManagerFactory;
 import org.immutables.value.Value;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClient;
 import reactor.ipc.netty.options.ClientOptions;
+import reactor.ipc.netty.resources.LoopResources;
 import reactor.ipc.netty.resources.PoolResources;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static io.netty.channel.ChannelOption.ALLOCATOR;
 import static io.netty.channel.ChannelOption.SO_KEEPALIVE;
 import static io.netty.channel.ChannelOption.SO_RCVBUF;
 import static io.netty.channel.ChannelOption.SO_SNDBUF;
 import static io.netty.channel.ChannelOption.SO_TIMEOUT;
+import static io.netty.channel.ChannelOption.TCP_NODELAY;
 
 /**
  * The default implementation of the {@link ConnectionContext} interface.  This is the implementation that should be used for most non-testing cases.
@@ -53,39 +70,87 @@ import static io.netty.channel.ChannelOption.SO_TIMEOUT;
 @Value.Immutable
 abstract class _DefaultConnectionContext implements ConnectionContext {
 
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    private static final int BUFFER_SIZE = 10 * 1024 * 1024;
+
+    private static final boolean DEFAULT_NATIVE_TRANSPORT = Boolean.parseBoolean(System.getProperty("reactor.ipc.netty.epoll", "true"));
+
     private static final int DEFAULT_PORT = 443;
 
+    private static final Pattern ENDPOINT_PATTERN = Pattern.compile("^(http|ws)s?://");
+
     private static final Pattern HOSTNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9-.]+$");
 
-    private static final int RECEIVE_BUFFER_SIZE = 10 * 1024 * 1024;
+    private static final int UNDEFINED_PORT = -1;
 
-    private static final int SEND_BUFFER_SIZE = 10 * 1024 * 1024;
+    private final AtomicReference<Disposable> prewarming = new AtomicReference<>();
 
-    private static final int UNDEFINED_PORT = -1;
+    /**
+     * Stops any connection pre-warming and releases the event loops and connection pools created by this context.  Resources shared with other contexts are left for their owner to dispose of.
+     */
+    public final void dispose() {
+        Disposable prewarming = this.prewarming.getAndSet(null);
+
+        if (prewarming != null) {
+            prewarming.dispose();
+        }
+
+        if (!getConnectionResources().isPresent()) {
+            getResources().dispose();
+        }
+    }
+
+    /**
+     * The (optional) circuit breaker.  When absent, requests are always attempted.
+     */
+    @Override
+    public abstract Optional<CircuitBreaker> getCircuitBreaker();
+
+    /**
+     * The (optional) concurrency limiter.  When absent, requests are only limited by the size of the connection pool.
+     */
+    @Override
+    public abstract Optional<ConcurrencyLimiter> getConcurrencyLimiter();
+
+    /**
+     * The connection pool used by the default {@link HttpClient} for request/response traffic
+     */
+    public final InstrumentedPoolResources getConnectionPool() {
+        return getResources().getConnectionPool(getTransport());
+    }
 
     @Value.Default
     public Integer getConnectionPoolSize() {
         return 2 * PoolResources.DEFAULT_POOL_MAX_CONNECTION;
     }
 
+    /**
+     * The (optional) event loops, connection pools and buffer allocator shared with other contexts.  When absent, the context creates its own from its connection pool and thread settings, and
+     * those settings are otherwise ignored.
+     */
+    public abstract Optional<ConnectionResources> getConnectionResources();
+
     @Override
     @Value.Default
     public HttpClient getHttpClient() {
         return HttpClient.create(options -> {
-            options
-                .option(SO_SNDBUF, SEND_BUFFER_SIZE)
-                .option(SO_RCVBUF, RECEIVE_BUFFER_SIZE)
-                .poolResources(PoolResources.fixed("cloudfoundry-client", getConnectionPoolSize()));
+            configure(options)
+                .poolResources(getConnectionPool());
 
-            getKeepAlive().ifPresent(keepAlive -> options.option(SO_KEEPALIVE, keepAlive));
-            getProxyConfiguration().ifPresent(c -> options.proxy(ClientOptions.Proxy.HTTP, c.getHost(), c.getPort().orElse(null), c.getUsername().orElse(null), u -> c.getPassword().orElse(null)));
-            getSocketTimeout().ifPresent(socketTimeout -> options.option(SO_TIMEOUT, (int) socketTimeout.toMillis()));
-
-            options.sslSupport(ssl -> getSslCertificateTruster().ifPresent(trustManager -> ssl.trustManager(new StaticTrustManagerFactory(trustManager))));
-            getSslHandshakeTimeout().ifPresent(options::sslHandshakeTimeout);
+            getResources().getLoopResources().ifPresent(options::loopResources);
         });
     }
 
+    @Override
+    @Value.Derived
+    public JsonTypeRegistry getJsonTypeRegistry() {
+        return new JsonTypeRegistry(getObjectMapper());
+    }
+
+    /**
+     * The {@link ObjectMapper} to use.  If {@code jackson-module-afterburner} is on the classpath, the default mapper registers its bytecode-generating module.
+     */
     @Override
     @Value.Default
     public ObjectMapper getObjectMapper() {
@@ -95,16 +160,75 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .registerModule(new Jdk8Module())
             .setSerializationInclusion(NON_NULL);
 
+        getAfterburnerModule().ifPresent(objectMapper::registerModule);
         getProblemHandlers().forEach(objectMapper::addHandler);
 
         return objectMapper;
     }
 
+    /**
+     * The (optional) pagination policy.  When absent, listings that do not specify a page size use the server's default.
+     */
+    @Override
+    public abstract Optional<PaginationPolicy> getPaginationPolicy();
+
     @Value.Default
     public Integer getPort() {
         return DEFAULT_PORT;
     }
 
+    /**
+     * The (optional) request coalescer.  When absent, identical concurrent requests each make their own exchange.
+     */
+    @Override
+    public abstract Optional<RequestCoalescer> getRequestCoalescer();
+
+    /**
+     * The (optional) request hedger.  When absent, requests are not hedged.
+     */
+    @Override
+    public abstract Optional<RequestHedger> getRequestHedger();
+
+    /**
+     * The (optional) request observer.  When absent, exchanges are not observed.
+     */
+    @Override
+    public abstract Optional<RequestObserver> getRequestObserver();
+
+    /**
+     * The (optional) request pacer.  When absent, requests are not paced.
+     */
+    @Override
+    public abstract Optional<RequestPacer> getRequestPacer();
+
+    /**
+     * The (optional) priority of every request made through this context.  A context for batch work can be built from an interactive one, sharing its request pacer, with a priority of
+     * {@link RequestPriority#BACKGROUND}.  When absent, the request pacer infers the priority of each request.
+     */
+    @Override
+    public abstract Optional<RequestPriority> getRequestPriority();
+
+    /**
+     * The (optional) response cache.  When absent, responses are not cached.
+     */
+    @Override
+    public abstract Optional<ResponseCache> getResponseCache();
+
+    /**
+     * Whether to ask servers to compress response payloads with {@code gzip} or {@code deflate}.  Defaults to {@code false}.
+     */
+    @Override
+    @Value.Default
+    public Boolean getResponseCompression() {
+        return false;
+    }
+
+    /**
+     * The (optional) retry policy.  When absent, failed requests are not retried.
+     */
+    @Override
+    public abstract Optional<RetryPolicy> getRetryPolicy();
+
     @Value.Derived
     public Mono<String> getRoot() {
         Integer port = getPort();
@@ -114,18 +238,61 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         }
 
         UriComponents components = normalize(builder, getScheme());
-        trust(components, getSslCertificateTruster());
 
-        return Mono.just(components.toUriString());
+        return trust(components, getSslCertificateTruster())
+            .then(Mono.just(components.toUriString()));
     }
 
     @Override
     public Mono<String> getRoot(String key) {
-        return getInfo()
-            .map(info -> normalize(UriComponentsBuilder.fromUriString(info.get(key)), getScheme()))
-            .doOnNext(components -> trust(components, getSslCertificateTruster()))
-            .map(UriComponents::toUriString)
-            .cache();
+        return getRoots().get()
+            .then(roots -> Optional.ofNullable(roots.get(key))
+                .map(components -> trust(components, getSslCertificateTruster())
+                    .then(Mono.just(components.toUriString())))
+                .orElse(Mono.error(new IllegalArgumentException(String.format("No root found for key %s", key)))));
+    }
+
+    /**
+     * How long the roots discovered from {@code /v2/info} are used before they are refreshed in the background.  Defaults to five minutes.
+     */
+    @Value.Default
+    public Duration getRootCacheTtl() {
+        return Duration.ofMinutes(5);
+    }
+
+    /**
+     * The connection pool used by the default streaming {@link HttpClient}
+     */
+    public final InstrumentedPoolResources getStreamingConnectionPool() {
+        return getResources().getStreamingConnectionPool(getTransport());
+    }
+
+    /**
+     * The maximum number of concurrent streams per host.  Defaults to the number of available processors.
+     */
+    @Value.Default
+    public Integer getStreamingConnectionPoolSize() {
+        return PoolResources.DEFAULT_POOL_MAX_CONNECTION;
+    }
+
+    /**
+     * The {@link HttpClient} used for long-lived streams.  By default it has its own connection pool and event loops so that streams cannot starve request/response traffic of connections or
+     * threads.
+     */
+    @Override
+    @Value.Default
+    public HttpClient getStreamingHttpClient() {
+        return HttpClient.create(options -> configure(options)
+            .loopResources(getResources().getStreamingLoopResources())
+            .poolResources(getStreamingConnectionPool()));
+    }
+
+    /**
+     * The number of event loop threads of the default streaming {@link HttpClient}.  Defaults to half the default number of event loop threads.
+     */
+    @Value.Default
+    public Integer getStreamingThreadCount() {
+        return Math.max(1, LoopResources.DEFAULT_IO_WORKER_COUNT / 2);
     }
 
     @Value.Check
@@ -137,23 +304,61 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         }
     }
 
+    ClientOptions configure(ClientOptions options) {
+        options
+            .option(ALLOCATOR, getResources().getAllocator())
+            .option(SO_SNDBUF, getSendBufferSize())
+            .option(SO_RCVBUF, getReceiveBufferSize());
+
+        getKeepAlive().ifPresent(keepAlive -> options.option(SO_KEEPALIVE, keepAlive));
+        getNativeTransport().ifPresent(options::preferNative);
+        getProxyConfiguration().ifPresent(c -> options.proxy(ClientOptions.Proxy.HTTP, c.getHost(), c.getPort().orElse(null), c.getUsername().orElse(null), u -> c.getPassword().orElse(null)));
+        getSocketTimeout().ifPresent(socketTimeout -> options.option(SO_TIMEOUT, (int) socketTimeout.toMillis()));
+        getTcpNoDelay().ifPresent(tcpNoDelay -> options.option(TCP_NODELAY, tcpNoDelay));
+
+        if (isSecure()) {
+            options.sslSupport(ssl -> {
+                getSslCertificateTruster().ifPresent(trustManager -> ssl.trustManager(new StaticTrustManagerFactory(trustManager)));
+
+                if (isOpenSsl()) {
+                    ssl.sslProvider(SslProvider.OPENSSL);
+                }
+            });
+            getSslHandshakeTimeout().ifPresent(options::sslHandshakeTimeout);
+        }
+
+        if (isNativeTransport()) {
+            getTcpQuickAck().ifPresent(tcpQuickAck -> options.option(EpollChannelOption.TCP_QUICKACK, tcpQuickAck));
+        }
+
+        return options;
+    }
+
     /**
      * The hostname of the API root.  Typically something like {@code api.run.pivotal.io}.
      */
     abstract String getApiHost();
 
+    /**
+     * The (optional) maximum time a connection may be idle in the pool before it is closed
+     */
+    abstract Optional<Duration> getConnectionMaxIdleTime();
+
+    /**
+     * The (optional) maximum time a connection may be open before it is closed on release
+     */
+    abstract Optional<Duration> getConnectionMaxLifetime();
+
     @SuppressWarnings("unchecked")
-    @Value.Derived
-    Mono<Map<String, String>> getInfo() {
+    Mono<Map<String, Object>> getInfo() {
         return getRoot()
             .map(uri -> UriComponentsBuilder.fromUriString(uri).pathSegment("v2", "info").build().toUriString())
             .then(uri -> getHttpClient()
                 .get(uri)
                 .doOnSubscribe(NetworkLogging.get(uri))
                 .transform(NetworkLogging.response(uri)))
-            .transform(JsonCodec.decode(getObjectMapper(), Map.class))
-            .map(m -> (Map<String, String>) m)
-            .cache();
+            .transform(JsonCodec.decode(getJsonTypeRegistry(), Map.class))
+            .map(m -> (Map<String, Object>) m);
     }
 
     /**
@@ -161,6 +366,20 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<Boolean> getKeepAlive();
 
+    /**
+     * Whether to prefer the native transport (i.e. {@code epoll}) where it is available.  Reactor Netty already prefers it by default (see the {@code reactor.ipc.netty.epoll} system property), but
+     * never uses it with the JDK SSL provider, so enabling it mainly switches secure connections to OpenSSL when {@code netty-tcnative} is on the classpath.  Set to {@code false} to force the NIO
+     * transport.
+     */
+    abstract Optional<Boolean> getNativeTransport();
+
+    /**
+     * The (optional) number of connections to open to each root as soon as it is discovered, so that the first burst of requests does not wait for connections to be established.  The roots are
+     * warmed again each time they are refreshed, cancelling any earlier warming that is still running.  Only {@code http} and {@code https} roots are warmed, as streaming roots do not use the
+     * request/response connection pool.
+     */
+    abstract Optional<Integer> getPrewarmedConnections();
+
     /**
      * Jackson deserialization problem handlers.  Typically only used for testing.
      */
@@ -171,9 +390,41 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<ProxyConfiguration> getProxyConfiguration();
 
+    /**
+     * The {@code SO_RCVBUF} value.  Defaults to 10 MB.
+     */
+    @Value.Default
+    Integer getReceiveBufferSize() {
+        return BUFFER_SIZE;
+    }
+
+    @Value.Auxiliary
+    @Value.Derived
+    ConnectionResources getResources() {
+        return getConnectionResources()
+            .orElseGet(() -> ConnectionResources.builder()
+                .connectionMaxIdleTime(getConnectionMaxIdleTime())
+                .connectionMaxLifetime(getConnectionMaxLifetime())
+                .connectionPoolSize(getConnectionPoolSize())
+                .streamingConnectionPoolAcquireTimeout(getStreamingConnectionPoolAcquireTimeout())
+                .streamingConnectionPoolSize(getStreamingConnectionPoolSize())
+                .streamingThreadCount(getStreamingThreadCount())
+                .build());
+    }
+
+    @Value.Auxiliary
+    @Value.Derived
+    RefreshingCache<Map<String, UriComponents>> getRoots() {
+        return new RefreshingCache<>(getInfo()
+            .then(info -> trustEndpoints(info, getScheme(), getSslCertificateTruster())
+                .then(Mono.just(info)))
+            .doOnNext(this::prewarm)
+            .map(info -> normalize(info, getScheme())), getRootCacheTtl());
+    }
+
     @Value.Derived
     String getScheme() {
-        if (getSecure().orElse(true)) {
+        if (isSecure()) {
             return "https";
         } else {
             return "http";
@@ -185,6 +436,14 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<Boolean> getSecure();
 
+    /**
+     * The {@code SO_SNDBUF} value.  Defaults to 10 MB.
+     */
+    @Value.Default
+    Integer getSendBufferSize() {
+        return BUFFER_SIZE;
+    }
+
     /**
      * Whether to skip SSL certificate validation for all hosts reachable from the API host.  Defaults to {@code false}.
      */
@@ -209,6 +468,69 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<Duration> getSslHandshakeTimeout();
 
+    /**
+     * The {@code TCP_NODELAY} value
+     */
+    abstract Optional<Boolean> getTcpNoDelay();
+
+    /**
+     * The {@code TCP_QUICKACK} value.  Only applied when the native transport is used.
+     */
+    abstract Optional<Boolean> getTcpQuickAck();
+
+    /**
+     * The settings of this context that are applied to each of its connections.  Contexts that share {@link ConnectionResources} only share connections when these are equal.
+     */
+    @Value.Auxiliary
+    @Value.Derived
+    List<Object> getTransport() {
+        return Arrays.asList(isSecure(), getSslCertificateTruster(), getSslHandshakeTimeout(), getProxyConfiguration(), getKeepAlive(), getNativeTransport(), getReceiveBufferSize(),
+            getSendBufferSize(), getSocketTimeout(), getTcpNoDelay(), getTcpQuickAck());
+    }
+
+    /**
+     * The maximum time to wait for a pooled streaming connection to become available
+     */
+    abstract Optional<Duration> getStreamingConnectionPoolAcquireTimeout();
+
+    private static Optional<Module> getAfterburnerModule() {
+        ClassLoader classLoader = _DefaultConnectionContext.class.getClassLoader();
+
+        if (!ClassUtils.isPresent(AFTERBURNER_MODULE, classLoader)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of((Module) ClassUtils.forName(AFTERBURNER_MODULE, classLoader).newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Unable to instantiate %s", AFTERBURNER_MODULE), e);
+        }
+    }
+
+    private boolean isNativeTransport() {
+        return getNativeTransport().orElse(DEFAULT_NATIVE_TRANSPORT) && Epoll.isAvailable() && (!isSecure() || isOpenSsl());
+    }
+
+    private boolean isOpenSsl() {
+        return getNativeTransport().orElse(false) && OpenSsl.isAvailable();
+    }
+
+    private boolean isSecure() {
+        return getSecure().orElse(true);
+    }
+
+    private static Map<String, UriComponents> normalize(Map<String, Object> info, String scheme) {
+        Map<String, UriComponents> roots = new HashMap<>();
+
+        info.forEach((key, value) -> {
+            if (value instanceof String && ENDPOINT_PATTERN.matcher((String) value).lookingAt()) {
+                roots.put(key, normalize(UriComponentsBuilder.fromUriString((String) value), scheme));
+            }
+        });
+
+        return roots;
+    }
+
     private static UriComponents normalize(UriComponentsBuilder builder, String scheme) {
         UriComponents components = builder.build();
 
@@ -221,8 +543,48 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return builder.build().encode();
     }
 
-    private static void trust(UriComponents components, Optional<SslCertificateTruster> sslCertificateTruster) {
-        sslCertificateTruster.ifPresent(t -> t.trust(components.getHost(), components.getPort(), Duration.ofSeconds(30)));
+    private void prewarm(Map<String, Object> info) {
+        getPrewarmedConnections().ifPresent(count -> {
+            Disposable previous = this.prewarming.getAndSet(Flux.fromStream(info.values().stream()
+                .filter(String.class::isInstance)
+                .map(String.class::cast))
+                .filter(value -> value.startsWith("http://") || value.startsWith("https://"))
+                .map(value -> normalize(UriComponentsBuilder.fromUriString(value), getScheme()))
+                .mergeWith(getRoot().map(root -> UriComponentsBuilder.fromUriString(root).build()))
+                .map(components -> UriComponentsBuilder.newInstance().scheme(components.getScheme()).host(components.getHost()).port(components.getPort()).path("/").build().toUriString())
+                .distinct()
+                .flatMap(uri -> Flux.range(0, count)
+                    .flatMap(i -> getHttpClient()
+                        .get(uri)
+                        .then(response -> response.receive().then())
+                        .otherwise(t -> Mono.empty())))
+                .subscribe());
+
+            if (previous != null) {
+                previous.dispose();
+            }
+        });
+    }
+
+    private static Mono<Void> trust(UriComponents components, Optional<SslCertificateTruster> sslCertificateTruster) {
+        return sslCertificateTruster
+            .map(t -> t.trustAsync(components.getHost(), components.getPort(), Duration.ofSeconds(30)))
+            .orElse(Mono.empty());
+    }
+
+    private static Mono<Void> trustEndpoints(Map<String, Object> info, String scheme, Optional<SslCertificateTruster> sslCertificateTruster) {
+        if (!sslCertificateTruster.isPresent()) {
+            return Mono.empty();
+        }
+
+        return Flux.fromStream(info.values().stream()
+            .filter(String.class::isInstance)
+            .map(String.class::cast))
+            .filter(value -> value.startsWith("https://") || value.startsWith("wss://"))
+            .map(value -> normalize(UriComponentsBuilder.fromUriString(value), scheme))
+            .flatMap(components -> trust(components, sslCertificateTruster)
+                .otherwise(t -> Mono.empty()))
+            .then();
     }
 
 }
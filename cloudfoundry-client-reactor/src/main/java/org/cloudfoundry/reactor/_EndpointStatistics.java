@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A snapshot of the exchanges of an endpoint recorded by a {@link HistogramRequestObserver}
+ */
+@Value.Immutable
+abstract class _EndpointStatistics {
+
+    /**
+     * The number of payload bytes received
+     */
+    public abstract Long getBytesIn();
+
+    /**
+     * The number of payload bytes sent
+     */
+    public abstract Long getBytesOut();
+
+    /**
+     * The number of completed exchanges
+     */
+    public abstract Long getCount();
+
+    /**
+     * The number of exchanges that failed without receiving a whole response
+     */
+    public abstract Long getErrors();
+
+    /**
+     * The latencies of completed exchanges at each percentile
+     */
+    public abstract Map<Double, Duration> getLatencies();
+
+    /**
+     * The largest latency of a completed exchange
+     */
+    public abstract Duration getMaximumLatency();
+
+    /**
+     * The number of retried exchanges
+     */
+    public abstract Long getRetries();
+
+    /**
+     * The number of completed exchanges with each status code
+     */
+    public abstract Map<Integer, Long> getStatuses();
+
+}
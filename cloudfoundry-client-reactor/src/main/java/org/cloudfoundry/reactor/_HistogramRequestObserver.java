@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link RequestObserver} that records, in memory, the latency histogram, status codes, byte counts and errors of each endpoint.  An endpoint is the method and templated path of an exchange,
+ * for example {@code GET /v2/apps/{id}/routes}.  Recorded values can be scraped with {@link #getStatistics()}.
+ */
+@Value.Immutable
+abstract class _HistogramRequestObserver implements RequestObserver {
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * The percentiles reported for each endpoint.  Defaults to the 50th, 90th, 99th and 99.9th.
+     */
+    @Value.Default
+    public List<Double> getPercentiles() {
+        return Arrays.asList(50.0, 90.0, 99.0, 99.9);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded for each endpoint
+     */
+    public final Map<String, EndpointStatistics> getStatistics() {
+        return this.endpoints.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getStatistics()));
+    }
+
+    @Override
+    public final void onComplete(ObservedExchange exchange) {
+        Endpoint endpoint = getEndpoint(exchange);
+
+        endpoint.latency.record(exchange.getElapsed().toNanos() / 1_000);
+        endpoint.statuses.computeIfAbsent(exchange.getStatus().orElse(0), key -> new AtomicLong()).incrementAndGet();
+        endpoint.record(exchange);
+    }
+
+    @Override
+    public final void onError(ObservedExchange exchange, Throwable error) {
+        Endpoint endpoint = getEndpoint(exchange);
+
+        endpoint.errors.incrementAndGet();
+        endpoint.record(exchange);
+    }
+
+    @Override
+    public final void onFirstByte(ObservedExchange exchange) {
+    }
+
+    @Override
+    public final void onStart(ObservedExchange exchange) {
+    }
+
+    @Value.Check
+    void check() {
+        if (getPercentiles().stream().anyMatch(percentile -> percentile <= 0 || percentile > 100)) {
+            throw new IllegalStateException("percentiles must be between 0 and 100");
+        }
+    }
+
+    private Endpoint getEndpoint(ObservedExchange exchange) {
+        return this.endpoints.computeIfAbsent(String.format("%s %s", exchange.getMethod(), exchange.getPath()), key -> new Endpoint());
+    }
+
+    private final class Endpoint {
+
+        private final AtomicLong bytesIn = new AtomicLong();
+
+        private final AtomicLong bytesOut = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final AtomicLong retries = new AtomicLong();
+
+        private final ConcurrentMap<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        private EndpointStatistics getStatistics() {
+            return EndpointStatistics.builder()
+                .bytesIn(this.bytesIn.get())
+                .bytesOut(this.bytesOut.get())
+                .count(this.latency.getCount())
+                .errors(this.errors.get())
+                .latencies(getPercentiles().stream()
+                    .collect(Collectors.toMap(Function.identity(), percentile -> Duration.of(this.latency.getValueAtPercentile(percentile), ChronoUnit.MICROS), (a, b) -> a)))
+                .maximumLatency(Duration.of(this.latency.getMaximum(), ChronoUnit.MICROS))
+                .retries(this.retries.get())
+                .statuses(this.statuses.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get())))
+                .build();
+        }
+
+        private void record(ObservedExchange exchange) {
+            this.bytesIn.addAndGet(exchange.getBytesIn());
+            this.bytesOut.addAndGet(exchange.getBytesOut());
+
+            if (exchange.getRetries() > 0) {
+                this.retries.incrementAndGet();
+            }
+        }
+
+    }
+
+}
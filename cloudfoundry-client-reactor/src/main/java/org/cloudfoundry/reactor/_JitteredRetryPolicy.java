@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.cloudfoundry.reactor.util.NetworkLogging;
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.channel.AbortedException;
+import reactor.ipc.netty.http.client.HttpClientException;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_GATEWAY;
+import static io.netty.handler.codec.http.HttpResponseStatus.GATEWAY_TIMEOUT;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * A {@link RetryPolicy} that retries exchanges failing with an I/O error, completing without a response, or responding with {@code 502 Bad Gateway}, {@code 503 Service Unavailable} or
+ * {@code 504 Gateway Timeout}.  Each retry waits for a random delay of up to the initial backoff doubled for each previous retry ("full jitter").  An exchange that still completes without a response
+ * once it can no longer be retried fails with an {@link AbortedException}.
+ * <p>
+ * Retries are drawn from a token bucket shared by all exchanges so that they cannot amplify an outage.  Each retry withdraws one token, each exchange deposits the budget ratio, and an exchange is
+ * not retried when less than one token remains.
+ */
+@Value.Immutable
+abstract class _JitteredRetryPolicy implements RetryPolicy {
+
+    private static final RuntimeException RETRY = new RetrySignal();
+
+    private final TokenBucket budget = new TokenBucket(this::getBudgetCapacity, this::getBudgetRatio);
+
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Returns the number of tokens remaining in the retry budget
+     */
+    public final double getBudget() {
+        return this.budget.getRemaining();
+    }
+
+    /**
+     * The largest number of tokens held by the retry budget, and the number it starts with.  Defaults to {@code 10}.
+     */
+    @Value.Default
+    public Double getBudgetCapacity() {
+        return 10.0;
+    }
+
+    /**
+     * The number of tokens each exchange deposits in the retry budget.  Defaults to {@code 0.1}, allowing roughly one retry for every ten exchanges.
+     */
+    @Value.Default
+    public Double getBudgetRatio() {
+        return 0.1;
+    }
+
+    /**
+     * The largest delay before the first retry.  Defaults to 100 milliseconds.
+     */
+    @Value.Default
+    public Duration getInitialBackoff() {
+        return Duration.ofMillis(100);
+    }
+
+    /**
+     * The largest delay before any retry.  Defaults to 10 seconds.
+     */
+    @Value.Default
+    public Duration getMaximumBackoff() {
+        return Duration.ofSeconds(10);
+    }
+
+    /**
+     * The largest number of times an exchange is retried.  Defaults to {@code 3}.
+     */
+    @Value.Default
+    public Integer getMaximumRetries() {
+        return 3;
+    }
+
+    /**
+     * Returns the number of retries made
+     */
+    public final long getRetries() {
+        return this.retries.get();
+    }
+
+    @Override
+    public final Mono<HttpClientResponse> retry(String uri, Function<Integer, Mono<HttpClientResponse>> exchange) {
+        return Mono.defer(() -> {
+            this.budget.deposit();
+            return attempt(uri, exchange, 0);
+        });
+    }
+
+    @Value.Check
+    void check() {
+        if (getBudgetCapacity() < 1 || getBudgetRatio() < 0 || getMaximumRetries() < 0) {
+            throw new IllegalStateException("budget capacity must be at least 1, and budget ratio and maximum retries must not be negative");
+        }
+
+        if (getInitialBackoff().isNegative() || getMaximumBackoff().compareTo(getInitialBackoff()) < 0) {
+            throw new IllegalStateException("backoffs must satisfy 0 <= initial <= maximum");
+        }
+    }
+
+    private Mono<HttpClientResponse> attempt(String uri, Function<Integer, Mono<HttpClientResponse>> exchange, int retries) {
+        return exchange.apply(retries)
+            .otherwiseIfEmpty(Mono.defer(() -> Mono.error(new AbortedException("Connection closed before a response was received"))))
+            .then(response -> isRetryable(response.status()) && withdraw(retries) ? drain(response) : Mono.just(response))
+            .otherwise(error -> error == RETRY || (isRetryable(error) && withdraw(retries)) ? backoff(uri, exchange, retries) : Mono.error(error));
+    }
+
+    private Mono<HttpClientResponse> backoff(String uri, Function<Integer, Mono<HttpClientResponse>> exchange, int retries) {
+        Duration backoff = getBackoff(retries);
+        NetworkLogging.REQUEST_LOGGER.debug("Retrying {} in {} ms", uri, backoff.toMillis());
+
+        return Mono.delay(backoff)
+            .then(() -> attempt(uri, exchange, retries + 1));
+    }
+
+    private static Mono<HttpClientResponse> drain(HttpClientResponse response) {
+        return response.receive()
+            .then()
+            .otherwise(error -> Mono.empty())
+            .then(Mono.error(RETRY));
+    }
+
+    private Duration getBackoff(int retries) {
+        long ceiling = Math.min(getMaximumBackoff().toMillis(), getInitialBackoff().toMillis() << Math.min(retries, 30));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private static boolean isRetryable(HttpResponseStatus status) {
+        int code = status.code();
+        return code == BAD_GATEWAY.code() || code == SERVICE_UNAVAILABLE.code() || code == GATEWAY_TIMEOUT.code();
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof HttpClientException) {
+            return isRetryable(((HttpClientException) error).status());
+        }
+
+        return error instanceof IOException || error instanceof AbortedException;
+    }
+
+    private boolean withdraw(int retries) {
+        if (retries >= getMaximumRetries()) {
+            return false;
+        }
+
+        if (!this.budget.withdraw()) {
+            return false;
+        }
+
+        this.retries.incrementAndGet();
+        return true;
+    }
+
+    private static final class RetrySignal extends RuntimeException {
+
+        private static final long serialVersionUID = 5092845027134497052L;
+
+        private RetrySignal() {
+            super("retry", null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A {@link ResponseCache} that holds up to a maximum number of responses, evicting the least recently used.  Responses that can be revalidated, because they have an {@code ETag} or
+ * {@code Last-Modified} header, are always stored.  Responses that cannot be revalidated are only stored for immutable endpoints, and are then served without contacting the server.
+ * <p>
+ * Immutable endpoints are path prefixes, for example {@code /v2/stacks} or {@code /v2/shared_domains}.
+ */
+@Value.Immutable
+abstract class _LruResponseCache implements ResponseCache {
+
+    private final Map<List<String>, CacheEntry> entries = new LinkedHashMap<List<String>, CacheEntry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = -5529410327025462537L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, CacheEntry> eldest) {
+            return size() > getMaximumSize();
+        }
+
+    };
+
+    @Override
+    public final Optional<CachedResponse> get(String uri, String principal) {
+        List<String> key = Arrays.asList(uri, principal);
+
+        synchronized (this.entries) {
+            CacheEntry entry = this.entries.get(key);
+
+            if (entry == null) {
+                return Optional.empty();
+            }
+
+            if (isExpired(entry)) {
+                this.entries.remove(key);
+                return Optional.empty();
+            }
+
+            return Optional.of(entry.response);
+        }
+    }
+
+    /**
+     * The path prefixes of endpoints whose responses never change
+     */
+    public abstract List<String> getImmutableEndpoints();
+
+    /**
+     * The maximum number of responses held.  Defaults to {@code 1000}.
+     */
+    @Value.Default
+    public Integer getMaximumSize() {
+        return 1_000;
+    }
+
+    /**
+     * Returns the number of responses held
+     */
+    public final int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * The (optional) time after which a response is evicted.  When absent, responses are only evicted to make room for others.
+     */
+    public abstract Optional<Duration> getTimeToLive();
+
+    @Override
+    public final void put(String uri, String principal, CachedResponse response) {
+        List<String> key = Arrays.asList(uri, principal);
+
+        synchronized (this.entries) {
+            if (response.isRevalidatable() || isImmutable(uri)) {
+                this.entries.put(key, new CacheEntry(response));
+            } else {
+                this.entries.remove(key);
+            }
+        }
+    }
+
+    @Value.Check
+    void check() {
+        if (getMaximumSize() < 1) {
+            throw new IllegalStateException("maximum size must be at least 1");
+        }
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        return getTimeToLive()
+            .map(timeToLive -> System.nanoTime() - entry.created > timeToLive.toNanos())
+            .orElse(false);
+    }
+
+    private boolean isImmutable(String uri) {
+        String path = URI.create(uri).getRawPath();
+
+        return getImmutableEndpoints().stream()
+            .anyMatch(prefix -> path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/'));
+    }
+
+    private static final class CacheEntry {
+
+        private final long created = System.nanoTime();
+
+        private final CachedResponse response;
+
+        private CacheEntry(CachedResponse response) {
+            this.response = response;
+        }
+
+    }
+
+}
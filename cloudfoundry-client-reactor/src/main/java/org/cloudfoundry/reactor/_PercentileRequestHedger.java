@@ -0,0 +1,217 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.cloudfoundry.reactor.util.PathTemplates;
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RequestHedger} that sends a second request when the first has not responded within a percentile of the recent response latencies of the same endpoint.  The first response wins and the
+ * other request is cancelled.  An endpoint is the path of a URI with identifiers replaced, for example {@code /v2/apps/{id}/stats}, and exchanges are not hedged until the endpoint has responded
+ * to enough of them.  Once there are more than a thousand endpoints, endpoints that are not yet hedged are forgotten, followed by the others if that is not enough.  A hedge needs a second pooled
+ * connection, so the connection pool must allow more than one connection to each host.
+ * <p>
+ * Hedges are drawn from a token bucket shared by all exchanges so that they cannot add more than a fraction of load.  Each hedge withdraws one token, each exchange deposits the budget ratio, and an
+ * exchange is not hedged when less than one token remains.
+ */
+@Value.Immutable
+abstract class _PercentileRequestHedger implements RequestHedger {
+
+    private static final int MAXIMUM_ENDPOINTS = 1_000;
+
+    private final TokenBucket budget = new TokenBucket(this::getBudgetCapacity, this::getBudgetRatio);
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    /**
+     * Returns the number of tokens remaining in the hedging budget
+     */
+    public final double getBudget() {
+        return this.budget.getRemaining();
+    }
+
+    /**
+     * The largest number of tokens held by the hedging budget, and the number it starts with.  Defaults to {@code 10}.
+     */
+    @Value.Default
+    public Double getBudgetCapacity() {
+        return 10.0;
+    }
+
+    /**
+     * The number of tokens each exchange deposits in the hedging budget.  Defaults to {@code 0.05}, allowing roughly one hedge for every twenty exchanges.
+     */
+    @Value.Default
+    public Double getBudgetRatio() {
+        return 0.05;
+    }
+
+    /**
+     * Returns the endpoints that have been used
+     */
+    public final Set<String> getEndpoints() {
+        return this.endpoints.keySet();
+    }
+
+    /**
+     * Returns the number of hedges sent
+     */
+    public final long getHedges() {
+        return this.hedges.get();
+    }
+
+    /**
+     * The shortest delay before hedging.  Defaults to 10 milliseconds.
+     */
+    @Value.Default
+    public Duration getMinimumDelay() {
+        return Duration.ofMillis(10);
+    }
+
+    /**
+     * The number of responses an endpoint must receive before its exchanges are hedged.  Defaults to {@code 20}.
+     */
+    @Value.Default
+    public Integer getMinimumSamples() {
+        return 20;
+    }
+
+    /**
+     * The percentile of response latencies after which an exchange is hedged.  Defaults to {@code 95}.
+     */
+    @Value.Default
+    public Double getPercentile() {
+        return 95.0;
+    }
+
+    /**
+     * Returns the delay after which exchanges with an endpoint are hedged
+     *
+     * @param endpoint the endpoint
+     * @return the delay, or empty if exchanges with the endpoint are not yet hedged
+     */
+    public final Optional<Duration> getThreshold(String endpoint) {
+        Endpoint e = this.endpoints.get(endpoint);
+        return e == null ? Optional.empty() : e.getThreshold();
+    }
+
+    /**
+     * The number of responses after which an endpoint's latencies are replaced by more recent ones.  Defaults to {@code 1000}.
+     */
+    @Value.Default
+    public Integer getWindowSize() {
+        return 1000;
+    }
+
+    @Override
+    public final Mono<HttpClientResponse> hedge(String uri, Mono<HttpClientResponse> exchange) {
+        Endpoint endpoint = this.endpoints.computeIfAbsent(PathTemplates.getPathTemplate(uri), key -> new Endpoint());
+
+        if (this.endpoints.size() > MAXIMUM_ENDPOINTS) {
+            this.endpoints.values().removeIf(e -> e != endpoint && !e.getThreshold().isPresent());
+
+            if (this.endpoints.size() > MAXIMUM_ENDPOINTS) {
+                this.endpoints.values().removeIf(e -> e != endpoint);
+            }
+        }
+
+        return Mono.defer(() -> {
+            this.budget.deposit();
+
+            Optional<Duration> threshold = endpoint.getThreshold();
+            if (!threshold.isPresent()) {
+                return timed(endpoint, exchange);
+            }
+
+            return Mono.first(
+                timed(endpoint, exchange),
+                Mono.delay(threshold.get())
+                    .then(() -> this.budget.withdraw() ? hedged(endpoint, exchange) : Mono.<HttpClientResponse>never()));
+        });
+    }
+
+    @Value.Check
+    void check() {
+        if (getBudgetCapacity() < 1 || getBudgetRatio() < 0) {
+            throw new IllegalStateException("budget capacity must be at least 1 and budget ratio must not be negative");
+        }
+
+        if (getPercentile() <= 0 || getPercentile() > 100 || getMinimumSamples() < 1 || getWindowSize() < getMinimumSamples()) {
+            throw new IllegalStateException("percentile must be between 0 and 100, and window size must be at least minimum samples, which must be at least 1");
+        }
+    }
+
+    private Mono<HttpClientResponse> hedged(Endpoint endpoint, Mono<HttpClientResponse> exchange) {
+        this.hedges.incrementAndGet();
+        return timed(endpoint, exchange);
+    }
+
+    private static Mono<HttpClientResponse> timed(Endpoint endpoint, Mono<HttpClientResponse> exchange) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return exchange.doOnNext(response -> endpoint.record(System.nanoTime() - start));
+        });
+    }
+
+    private final class Endpoint {
+
+        private volatile LatencyHistogram current = new LatencyHistogram();
+
+        private volatile LatencyHistogram previous;
+
+        private volatile long threshold = -1;
+
+        private Optional<Duration> getThreshold() {
+            long threshold = this.threshold;
+            return threshold < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(threshold)));
+        }
+
+        private void record(long latency) {
+            LatencyHistogram current = this.current;
+            current.record(TimeUnit.NANOSECONDS.toMicros(latency));
+
+            long count = current.getCount();
+            if (count % getMinimumSamples() != 0) {
+                return;
+            }
+
+            synchronized (this) {
+                if (count >= getWindowSize() && this.current == current) {
+                    this.previous = current;
+                    this.current = new LatencyHistogram();
+                }
+
+                LatencyHistogram histogram = this.previous == null ? current : this.previous;
+                this.threshold = Math.max(histogram.getValueAtPercentile(getPercentile()), TimeUnit.NANOSECONDS.toMicros(getMinimumDelay().toNanos()));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+
+/**
+ * A {@link RequestPacer} that tracks the {@code X-RateLimit-Limit}, {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset} response headers of each user.  While plenty of the rate limit
+ * remains, exchanges proceed immediately.  Once the remaining budget falls below the pacing threshold, exchanges are spaced out so that the budget lasts until the rate limit resets, and once it is
+ * exhausted they wait for the reset rather than fail with {@code 429 Too Many Requests}.
+ * <p>
+ * Interactive exchanges are always scheduled ahead of background exchanges, and background exchanges may not use the part of the budget reserved for interactive ones.  An exchange has the
+ * {@link RequestPriority} of its {@link ConnectionContext}.  When the context does not specify one, an exchange is considered background if it requests a page after the first of a paginated listing.
+ */
+@Value.Immutable
+abstract class _RateLimitRequestPacer implements RequestPacer {
+
+    private static final String LIMIT = "X-RateLimit-Limit";
+
+    private static final Pattern PAGE = Pattern.compile("[?&]page=(\\d+)");
+
+    private static final String REMAINING = "X-RateLimit-Remaining";
+
+    private static final String RESET = "X-RateLimit-Reset";
+
+    private final Map<TokenProvider, Budget> budgets = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The fraction of the rate limit reserved for interactive exchanges.  Defaults to {@code 0.1}.
+     */
+    @Value.Default
+    public Double getInteractiveReserve() {
+        return 0.1;
+    }
+
+    /**
+     * The fraction of the rate limit remaining below which exchanges are paced.  Defaults to {@code 0.2}.
+     */
+    @Value.Default
+    public Double getPacingThreshold() {
+        return 0.2;
+    }
+
+    /**
+     * Returns the number of exchanges of a user waiting to proceed
+     *
+     * @param tokenProvider the {@link TokenProvider} identifying the user
+     * @return the number of waiting exchanges
+     */
+    public final int getQueueDepth(TokenProvider tokenProvider) {
+        Budget budget = this.budgets.get(tokenProvider);
+        return budget == null ? 0 : budget.getQueueDepth();
+    }
+
+    /**
+     * Returns the estimated number of exchanges a user may make before the rate limit resets
+     *
+     * @param tokenProvider the {@link TokenProvider} identifying the user
+     * @return the estimated remaining budget, or empty if no rate limit has been reported
+     */
+    public final Optional<Long> getRemaining(TokenProvider tokenProvider) {
+        Budget budget = this.budgets.get(tokenProvider);
+        return budget == null ? Optional.empty() : budget.getRemaining();
+    }
+
+    @Override
+    public final Mono<HttpClientResponse> pace(TokenProvider tokenProvider, String uri, Optional<RequestPriority> priority, Mono<HttpClientResponse> exchange) {
+        Budget budget = this.budgets.computeIfAbsent(tokenProvider, key -> new Budget());
+        boolean background = priority
+            .map(RequestPriority.BACKGROUND::equals)
+            .orElseGet(() -> isBackground(uri));
+
+        return Mono.defer(() -> {
+            Waiter waiter = new Waiter(background, this.sequence.getAndIncrement());
+
+            return Mono.<Waiter>create(sink -> budget.enqueue(waiter, sink))
+                .then(w -> exchange.doOnNext(budget::update))
+                .doFinally(signal -> {
+                    if (waiter.cancel()) {
+                        budget.remove(waiter);
+                    }
+                });
+        });
+    }
+
+    @Value.Check
+    void check() {
+        if (getInteractiveReserve() < 0 || getInteractiveReserve() >= 1 || getPacingThreshold() < 0 || getPacingThreshold() > 1) {
+            throw new IllegalStateException("interactive reserve and pacing threshold must be fractions of the rate limit");
+        }
+    }
+
+    private static boolean isBackground(String uri) {
+        Matcher matcher = PAGE.matcher(uri);
+        return matcher.find() && Long.parseLong(matcher.group(1)) > 1;
+    }
+
+    private static Optional<Long> parseHeader(HttpHeaders headers, String name) {
+        try {
+            return Optional.ofNullable(headers.get(name)).map(String::trim).map(Long::parseLong);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private final class Budget {
+
+        private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(Comparator.comparing((Waiter waiter) -> waiter.background).thenComparingLong(waiter -> waiter.sequence));
+
+        private long lastSent = 0;
+
+        private long limit = -1;
+
+        private long remaining = -1;
+
+        private long reset = 0;
+
+        private long wakeup = Long.MAX_VALUE;
+
+        private synchronized int getQueueDepth() {
+            return this.waiting.size();
+        }
+
+        private synchronized Optional<Long> getRemaining() {
+            return this.limit < 0 ? Optional.empty() : Optional.of(this.remaining);
+        }
+
+        private void drain() {
+            List<Waiter> granted = new ArrayList<>();
+            long delay = 0;
+
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+
+                if (this.limit >= 0 && now >= this.reset) {
+                    this.limit = -1;
+                }
+
+                while (!this.waiting.isEmpty()) {
+                    Waiter head = this.waiting.peek();
+                    long wait = getWait(head, now);
+
+                    if (wait > 0) {
+                        if (now + wait < this.wakeup) {
+                            this.wakeup = now + wait;
+                            delay = wait;
+                        }
+
+                        break;
+                    }
+
+                    this.waiting.poll();
+                    if (head.grant()) {
+                        this.lastSent = now;
+
+                        if (this.limit >= 0) {
+                            this.remaining--;
+                        }
+
+                        granted.add(head);
+                    }
+                }
+            }
+
+            granted.forEach(Waiter::notifyGranted);
+
+            if (delay > 0) {
+                Mono.delay(Duration.ofMillis(delay))
+                    .subscribe(tick -> {
+                        synchronized (this) {
+                            this.wakeup = Long.MAX_VALUE;
+                        }
+
+                        drain();
+                    });
+            }
+        }
+
+        private void enqueue(Waiter waiter, MonoSink<Waiter> sink) {
+            waiter.sink = sink;
+
+            synchronized (this) {
+                this.waiting.add(waiter);
+            }
+
+            drain();
+        }
+
+        private long getWait(Waiter waiter, long now) {
+            if (this.limit < 0) {
+                return 0;
+            }
+
+            double floor = waiter.background ? this.limit * getInteractiveReserve() : 0;
+            if (this.remaining <= floor) {
+                return Math.max(1, this.reset - now);
+            }
+
+            if (this.remaining > this.limit * getPacingThreshold()) {
+                return 0;
+            }
+
+            long interval = (long) ((this.reset - now) / (this.remaining - floor));
+            return Math.max(0, this.lastSent + interval - now);
+        }
+
+        private void remove(Waiter waiter) {
+            synchronized (this) {
+                this.waiting.remove(waiter);
+            }
+        }
+
+        private void update(HttpClientResponse response) {
+            Optional<Long> limit = parseHeader(response.responseHeaders(), LIMIT);
+            Optional<Long> remaining = parseHeader(response.responseHeaders(), REMAINING);
+            Optional<Long> reset = parseHeader(response.responseHeaders(), RESET);
+            boolean tooManyRequests = response.status().code() == TOO_MANY_REQUESTS.code();
+
+            synchronized (this) {
+                if (limit.isPresent() && remaining.isPresent() && reset.isPresent()) {
+                    long resetMillis = Duration.ofSeconds(reset.get()).toMillis();
+
+                    this.remaining = this.limit < 0 || resetMillis != this.reset ? remaining.get() : Math.min(this.remaining, remaining.get());
+                    this.limit = limit.get();
+                    this.reset = resetMillis;
+                }
+
+                if (tooManyRequests && this.limit >= 0) {
+                    this.remaining = 0;
+                }
+            }
+
+            drain();
+        }
+
+    }
+
+    private static final class Waiter {
+
+        private final boolean background;
+
+        private final long sequence;
+
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private volatile MonoSink<Waiter> sink;
+
+        private Waiter(boolean background, long sequence) {
+            this.background = background;
+            this.sequence = sequence;
+        }
+
+        private boolean cancel() {
+            return this.settled.compareAndSet(false, true);
+        }
+
+        private boolean grant() {
+            return this.settled.compareAndSet(false, true);
+        }
+
+        private void notifyGranted() {
+            this.sink.success(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.immutables.value.Value;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link RequestCoalescer} that allows a single request in flight for each key.  Subscribers arriving while a request with the same key is in flight share its result rather than making another
+ * exchange.  The shared request is only cancelled once every one of its subscribers has cancelled.
+ * <p>
+ * Results are shared between subscribers, and so must not be mutated.
+ */
+@Value.Immutable
+abstract class _SingleFlightRequestCoalescer implements RequestCoalescer {
+
+    private final ConcurrentMap<Object, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    @Override
+    public final <T> Mono<T> coalesce(Object key, Mono<T> request) {
+        return Mono.defer(() -> {
+            Flight<T> flight = join(key, request);
+            return flight.processor
+                .doOnCancel(() -> leave(key, flight));
+        });
+    }
+
+    /**
+     * Returns the number of requests in flight
+     */
+    public final int getInFlight() {
+        return this.flights.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flight<T> join(Object key, Mono<T> request) {
+        while (true) {
+            Flight<T> existing = (Flight<T>) this.flights.get(key);
+
+            if (existing != null && existing.join()) {
+                return existing;
+            }
+
+            Flight<T> flight = new Flight<>();
+            flight.join();
+
+            if (existing == null ? this.flights.putIfAbsent(key, flight) == null : this.flights.replace(key, existing, flight)) {
+                request
+                    .doFinally(signal -> this.flights.remove(key, flight))
+                    .subscribe(flight.processor);
+
+                return flight;
+            }
+        }
+    }
+
+    private void leave(Object key, Flight<?> flight) {
+        if (flight.leave()) {
+            this.flights.remove(key, flight);
+            flight.processor.cancel();
+        }
+    }
+
+    private static final class Flight<T> {
+
+        private final MonoProcessor<T> processor = MonoProcessor.create();
+
+        private boolean abandoned = false;
+
+        private int subscribers = 0;
+
+        private synchronized boolean join() {
+            if (this.abandoned) {
+                return false;
+            }
+
+            this.subscribers++;
+            return true;
+        }
+
+        private synchronized boolean leave() {
+            this.subscribers--;
+            this.abandoned = this.subscribers == 0 && !this.processor.isTerminated();
+            return this.abandoned;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A precompiled accessor for a no-argument method, paired with metadata from the method's annotations
+ *
+ * @param <T> the type of metadata
+ */
+public final class MethodAccessor<T> {
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final MethodHandle methodHandle;
+
+    private final T metadata;
+
+    private MethodAccessor(MethodHandle methodHandle, T metadata) {
+        this.methodHandle = methodHandle;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Creates accessors for all of the methods of a class, ordered by name, that have metadata
+     *
+     * @param type              the class to inspect
+     * @param metadataExtractor a function returning the metadata of a method, or {@code null} if the method should not be accessed
+     * @param <T>               the type of metadata
+     * @return the accessors for the class
+     */
+    public static <T> List<MethodAccessor<T>> create(Class<?> type, Function<Method, T> metadataExtractor) {
+        Method[] methods = ReflectionUtils.getAllDeclaredMethods(type);
+        Arrays.sort(methods, MethodNameComparator.INSTANCE);
+
+        return Arrays.stream(methods)
+            .map(method -> {
+                T metadata = metadataExtractor.apply(method);
+                return metadata == null ? null : new MethodAccessor<>(unreflect(method), metadata);
+            })
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the metadata of the method
+     */
+    public T getMetadata() {
+        return this.metadata;
+    }
+
+    /**
+     * Invokes the method
+     *
+     * @param instance the instance to invoke the method on
+     * @return the value returned by the method
+     */
+    public Object invoke(Object instance) {
+        try {
+            return this.methodHandle.invokeExact(instance);
+        } catch (Throwable t) {
+            ReflectionUtils.rethrowRuntimeException(t);
+            return null;
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        ReflectionUtils.makeAccessible(method);
+
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(ACCESSOR_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format("Unable to access %s", method), e);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.PaginationPolicy;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Selects the page size of listings using the {@link PaginationPolicy} of a {@link ConnectionContext}, and reports their pages back to that policy.  The size of a listing is chosen once, where
+ * its pages are requested, and every page of the listing is requested with that size.
+ */
+public final class PageSizeSelector {
+
+    private final int maximum;
+
+    private final PageSize none = new PageSize(null, 0);
+
+    private final String parameter;
+
+    private final Optional<PaginationPolicy> policy;
+
+    private PageSizeSelector(Optional<PaginationPolicy> policy, String parameter, int maximum) {
+        this.maximum = maximum;
+        this.parameter = parameter;
+        this.policy = policy;
+    }
+
+    /**
+     * Creates a new selector
+     *
+     * @param connectionContext the connection context whose policy is used
+     * @param parameter         the name of the page size query parameter
+     * @param maximum           the maximum page size supported
+     * @return a selector for the listings of a single operations class
+     */
+    public static PageSizeSelector create(ConnectionContext connectionContext, String parameter, int maximum) {
+        return new PageSizeSelector(connectionContext.getPaginationPolicy(), parameter, maximum);
+    }
+
+    /**
+     * Selects the page size of a listing.  The caller must request every page of the listing with the returned size.
+     *
+     * @param unsized        whether the requests leave their page size unspecified.  If they do not, the returned size does nothing.
+     * @param uriTransformer the URI transformer of the first page
+     * @return the page size of every page of the listing
+     */
+    public PageSize select(boolean unsized, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+        if (!unsized || !this.policy.isPresent()) {
+            return this.none;
+        }
+
+        String endpoint = uriTransformer.apply(UriComponentsBuilder.newInstance()).build().getPath();
+        return new PageSize(endpoint, this.policy.get().getPageSize(endpoint, this.maximum));
+    }
+
+    /**
+     * The page size selected for a listing
+     */
+    public final class PageSize {
+
+        private final String endpoint;
+
+        private final int pageSize;
+
+        private PageSize(String endpoint, int pageSize) {
+            this.endpoint = endpoint;
+            this.pageSize = pageSize;
+        }
+
+        /**
+         * Augments a URI transformer with the page size
+         *
+         * @param uriTransformer the URI transformer to augment
+         * @return the augmented URI transformer
+         */
+        public Function<UriComponentsBuilder, UriComponentsBuilder> augment(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+            if (this.pageSize == 0) {
+                return uriTransformer;
+            }
+
+            return builder -> uriTransformer.apply(builder).queryParam(PageSizeSelector.this.parameter, this.pageSize);
+        }
+
+        /**
+         * Requests a page of the listing, reporting the number of resources decoded from it to the policy once it has been read in full.  The elapsed time is measured up to the receipt of the
+         * response headers.  Pages that fail or are cancelled are not reported.
+         *
+         * @param responseTransformer the response transformer of the request
+         * @param exchange            a function from the response transformer to the resources of the page
+         * @param <T>                 the type of the resources
+         * @return the resources of the page
+         */
+        public <T> Flux<T> observe(Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer,
+                                   Function<Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>>, Flux<T>> exchange) {
+            if (this.pageSize == 0) {
+                return exchange.apply(responseTransformer);
+            }
+
+            return Flux.defer(() -> {
+                long start = System.nanoTime();
+                AtomicLong elapsed = new AtomicLong();
+                AtomicInteger resources = new AtomicInteger();
+
+                return exchange.apply(inbound -> responseTransformer.apply(inbound)
+                    .doOnNext(response -> elapsed.set(System.nanoTime() - start)))
+                    .doOnNext(resource -> resources.incrementAndGet())
+                    .doOnComplete(() -> PageSizeSelector.this.policy.get().onPage(this.endpoint, this.pageSize, resources.get(), Duration.ofNanos(elapsed.get())));
+            });
+        }
+
+    }
+
+}
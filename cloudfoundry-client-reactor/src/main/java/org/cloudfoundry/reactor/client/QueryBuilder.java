@@ -18,12 +18,13 @@ package org.cloudfoundry.reactor.client;
 
 import org.cloudfoundry.QueryParameter;
 import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +32,8 @@ import java.util.stream.Collectors;
  */
 public final class QueryBuilder {
 
+    private static final Map<Class<?>, List<MethodAccessor<QueryParameter>>> ACCESSORS = new ConcurrentHashMap<>();
+
     private QueryBuilder() {
     }
 
@@ -41,17 +44,9 @@ public final class QueryBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(instance.getClass());
-        Arrays.sort(methods, MethodNameComparator.INSTANCE);
-
-        for (Method method : methods) {
-            QueryParameter queryParameter = AnnotationUtils.getAnnotation(method, QueryParameter.class);
-            if (queryParameter == null) {
-                continue;
-            }
-
-            ReflectionUtils.makeAccessible(method);
-            Object value = ReflectionUtils.invokeMethod(method, instance);
+        for (MethodAccessor<QueryParameter> accessor : ACCESSORS.computeIfAbsent(instance.getClass(), type -> MethodAccessor.create(type, QueryBuilder::getQueryParameter))) {
+            QueryParameter queryParameter = accessor.getMetadata();
+            Object value = accessor.invoke(instance);
 
             if (value != null) {
 
@@ -66,4 +61,8 @@ public final class QueryBuilder {
         }
     }
 
+    private static QueryParameter getQueryParameter(Method method) {
+        return AnnotationUtils.getAnnotation(method, QueryParameter.class);
+    }
+
 }
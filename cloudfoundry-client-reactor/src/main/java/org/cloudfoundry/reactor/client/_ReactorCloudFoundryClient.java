@@ -95,6 +95,7 @@ import org.cloudfoundry.reactor.client.v3.servicebindings.ReactorServiceBindings
 import org.cloudfoundry.reactor.client.v3.tasks.ReactorTasks;
 import org.immutables.value.Value;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.ipc.netty.http.client.HttpClient;
 
 /**
@@ -323,6 +324,17 @@ abstract class _ReactorCloudFoundryClient implements CloudFoundryClient {
         return new ReactorUsers(getConnectionContext(), getRoot(), getTokenProvider());
     }
 
+    /**
+     * Prepares the JSON readers and writers of every operation, so that the first request of each operation does not pay for building them.  The work is done once, on a background thread, when the
+     * returned {@link Mono} is subscribed to.
+     *
+     * @return completion once the readers and writers have been prepared
+     */
+    public Mono<Void> warmJsonTypes() {
+        return Mono.<Void>fromRunnable(() -> getConnectionContext().getJsonTypeRegistry().warm(CloudFoundryClient.class))
+            .subscribeOn(Schedulers.elastic());
+    }
+
     @Nullable
     abstract ConnectionContext getConnectionContext();
 
@@ -16,35 +16,52 @@
 
 package org.cloudfoundry.reactor.client.v2;
 
+import org.cloudfoundry.client.v2.PaginatedRequest;
 import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
+import org.cloudfoundry.reactor.client.PageSizeSelector;
+import org.cloudfoundry.reactor.client.PageSizeSelector.PageSize;
 import org.cloudfoundry.reactor.util.ErrorPayloadMapper;
 import org.cloudfoundry.reactor.client.QueryBuilder;
 import org.cloudfoundry.reactor.util.AbstractReactorOperations;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public abstract class AbstractClientV2Operations extends AbstractReactorOperations {
 
+    private static final int MAXIMUM_RESULTS_PER_PAGE = 100;
+
+    private static final String RESOURCES = "resources";
+
+    private static final String RESULTS_PER_PAGE = "results-per-page";
+
+    private static final String TOTAL_PAGES = "total_pages";
+
     private final ConnectionContext connectionContext;
 
+    private final PageSizeSelector pageSizeSelector;
+
     protected AbstractClientV2Operations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider) {
         super(connectionContext, root, tokenProvider);
         this.connectionContext = connectionContext;
+        this.pageSizeSelector = PageSizeSelector.create(connectionContext, RESULTS_PER_PAGE, MAXIMUM_RESULTS_PER_PAGE);
     }
 
     protected final <T> Mono<T> delete(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doDelete(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> get(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doGet(responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final Mono<HttpClientResponse> get(Object request, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
@@ -55,29 +72,74 @@ public abstract class AbstractClientV2Operations extends AbstractReactorOperatio
                                                  Function<HttpClientRequest, HttpClientRequest> requestTransformer) {
 
         return doGet(getUriAugmenter(request, uriTransformer), outbound -> requestTransformer.apply(outbound.failOnClientError(false).failOnServerError(false)),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> post(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPost(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> post(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                      Function<HttpClientRequest, Mono<Void>> requestTransformer) {
         return doPost(responseType, getUriAugmenter(request, uriTransformer), outbound -> requestTransformer.apply(outbound.failOnClientError(false).failOnServerError(false)),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> put(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPut(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> put(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                     Function<HttpClientRequest, Mono<Void>> requestTransformer) {
         return doPut(responseType, getUriAugmenter(request, uriTransformer), outbound -> requestTransformer.apply(outbound.failOnClientError(false).failOnServerError(false)),
-            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()));
+    }
+
+    /**
+     * Streams the resources of every page of a paginated request.  Each resource is emitted as soon as it has been read, and each subsequent page is only requested once the previous one has been
+     * consumed.
+     *
+     * @param pageSupplier   a function from a page number to the request for that page
+     * @param resourceType   the type of the resources
+     * @param uriTransformer the transformer applied to the request URI
+     * @param <T>            the type of the resources
+     * @return a stream of the resources of every page
+     */
+    protected final <T> Flux<T> stream(Function<Integer, PaginatedRequest> pageSupplier, Class<T> resourceType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+        return Flux.defer(() -> {
+            PaginatedRequest first = pageSupplier.apply(1);
+            PageSize pageSize = this.pageSizeSelector.select(isUnsized(first), getUriAugmenter(first, uriTransformer));
+            AtomicInteger totalPages = new AtomicInteger(Integer.MAX_VALUE);
+
+            return Flux
+                .<Integer, Integer>generate(() -> 1, (page, sink) -> {
+                    if (page > totalPages.get()) {
+                        sink.complete();
+                    } else {
+                        sink.next(page);
+                    }
+
+                    return page + 1;
+                })
+                .concatMap(page -> {
+                    if (page > totalPages.get()) {
+                        return Flux.empty();
+                    }
+
+                    PaginatedRequest request = page == 1 ? first : pageSupplier.apply(page);
+
+                    return pageSize.observe(ErrorPayloadMapper.clientV2(this.connectionContext.getJsonTypeRegistry()), responseTransformer -> doGetElements(RESOURCES, resourceType,
+                        envelope -> totalPages.set(getTotalPages(envelope)), pageSize.augment(getUriAugmenter(request, uriTransformer)),
+                        outbound -> outbound.failOnClientError(false).failOnServerError(false), responseTransformer));
+                }, 1);
+        });
+    }
+
+    private static int getTotalPages(Map<String, Object> envelope) {
+        Object totalPages = envelope.get(TOTAL_PAGES);
+        return totalPages instanceof Number ? ((Number) totalPages).intValue() : 1;
     }
 
     private static Function<UriComponentsBuilder, UriComponentsBuilder> getUriAugmenter(Object request, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
@@ -88,4 +150,8 @@ public abstract class AbstractClientV2Operations extends AbstractReactorOperatio
         };
     }
 
+    private static boolean isUnsized(Object request) {
+        return request instanceof PaginatedRequest && ((PaginatedRequest) request).getResultsPerPage() == null;
+    }
+
 }
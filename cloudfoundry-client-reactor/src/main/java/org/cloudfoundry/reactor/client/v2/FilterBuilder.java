@@ -17,18 +17,18 @@
 package org.cloudfoundry.reactor.client.v2;
 
 import org.cloudfoundry.client.v2.FilterParameter;
-import org.cloudfoundry.reactor.client.MethodNameComparator;
+import org.cloudfoundry.reactor.client.MethodAccessor;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ObjectUtils;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +36,8 @@ import java.util.stream.Collectors;
  */
 final class FilterBuilder {
 
+    private static final Map<Class<?>, List<MethodAccessor<Filter>>> ACCESSORS = new ConcurrentHashMap<>();
+
     private FilterBuilder() {
     }
 
@@ -46,33 +48,30 @@ final class FilterBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(instance.getClass());
-        Arrays.sort(methods, MethodNameComparator.INSTANCE);
-
-        for (Method method : methods) {
-            for (Annotation annotation : AnnotationUtils.getAnnotations(method)) {
-                if (AnnotationUtils.isAnnotationMetaPresent(annotation.getClass(), FilterParameter.class)) {
-                    Object value = getValue(method, instance);
-
-                    if (value != null) {
-                        FilterParameter filterParameter = AnnotationUtils.getAnnotation(annotation, FilterParameter.class);
-
-                        Object name = AnnotationUtils.getValue(annotation);
-                        String operation = filterParameter.operator();
+        for (MethodAccessor<Filter> accessor : ACCESSORS.computeIfAbsent(instance.getClass(), type -> MethodAccessor.create(type, FilterBuilder::getFilter))) {
+            Object value = getValue(accessor, instance);
 
-                        builder.queryParam("q", String.format("%s%s%s", name, operation, value));
-                    }
+            if (value != null) {
+                Filter filter = accessor.getMetadata();
+                builder.queryParam("q", String.format("%s%s%s", filter.name, filter.operator, value));
+            }
+        }
+    }
 
-                    break;
-                }
+    private static Filter getFilter(Method method) {
+        for (Annotation annotation : AnnotationUtils.getAnnotations(method)) {
+            if (AnnotationUtils.isAnnotationMetaPresent(annotation.getClass(), FilterParameter.class)) {
+                FilterParameter filterParameter = AnnotationUtils.getAnnotation(annotation, FilterParameter.class);
+                return new Filter(AnnotationUtils.getValue(annotation), filterParameter.operator());
             }
         }
+
+        return null;
     }
 
     @SuppressWarnings("unchecked")
-    private static Object getValue(Method method, Object instance) {
-        ReflectionUtils.makeAccessible(method);
-        Object value = ReflectionUtils.invokeMethod(method, instance);
+    private static Object getValue(MethodAccessor<Filter> accessor, Object instance) {
+        Object value = accessor.invoke(instance);
 
         if (!(value instanceof Collection)) {
             return value;
@@ -89,4 +88,17 @@ final class FilterBuilder {
         return StringUtils.collectionToCommaDelimitedString(collection);
     }
 
+    private static final class Filter {
+
+        private final Object name;
+
+        private final String operator;
+
+        private Filter(Object name, String operator) {
+            this.name = name;
+            this.operator = operator;
+        }
+
+    }
+
 }
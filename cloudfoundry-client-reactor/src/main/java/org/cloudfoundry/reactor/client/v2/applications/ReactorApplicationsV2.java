@@ -20,6 +20,7 @@ import org.cloudfoundry.client.v2.applications.ApplicationEnvironmentRequest;
 import org.cloudfoundry.client.v2.applications.ApplicationEnvironmentResponse;
 import org.cloudfoundry.client.v2.applications.ApplicationInstancesRequest;
 import org.cloudfoundry.client.v2.applications.ApplicationInstancesResponse;
+import org.cloudfoundry.client.v2.applications.ApplicationResource;
 import org.cloudfoundry.client.v2.applications.ApplicationStatisticsRequest;
 import org.cloudfoundry.client.v2.applications.ApplicationStatisticsResponse;
 import org.cloudfoundry.client.v2.applications.ApplicationsV2;
@@ -164,6 +165,11 @@ public final class ReactorApplicationsV2 extends AbstractClientV2Operations impl
         return get(request, ApplicationStatisticsResponse.class, builder -> builder.pathSegment("v2", "apps", request.getApplicationId(), "stats"));
     }
 
+    @Override
+    public Flux<ApplicationResource> stream(ListApplicationsRequest request) {
+        return stream(page -> ListApplicationsRequest.builder().from(request).page(page).build(), ApplicationResource.class, builder -> builder.pathSegment("v2", "apps"));
+    }
+
     @Override
     public Mono<SummaryApplicationResponse> summary(SummaryApplicationRequest request) {
         return get(request, SummaryApplicationResponse.class, builder -> builder.pathSegment("v2", "apps", request.getApplicationId(), "summary"));
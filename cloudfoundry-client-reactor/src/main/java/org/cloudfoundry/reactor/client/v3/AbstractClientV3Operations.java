@@ -39,44 +39,44 @@ public abstract class AbstractClientV3Operations extends AbstractReactorOperatio
 
     protected final <T> Mono<T> delete(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doDelete(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> get(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doGet(responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final Mono<HttpClientResponse> get(Object request, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doGet(getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> patch(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPatch(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> post(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                      Function<HttpClientRequest, Mono<Void>> requestTransformer) {
         return doPost(responseType, getUriAugmenter(request, uriTransformer), outbound -> requestTransformer.apply(outbound.failOnClientError(false).failOnServerError(false)),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected <T> Mono<T> post(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPost(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> put(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                     Function<HttpClientRequest, Mono<Void>> requestTransformer) {
         return doPut(responseType, getUriAugmenter(request, uriTransformer), outbound -> requestTransformer.apply(outbound.failOnClientError(false).failOnServerError(false)),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     protected final <T> Mono<T> put(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPut(request, responseType, getUriAugmenter(request, uriTransformer), outbound -> outbound.failOnClientError(false).failOnServerError(false),
-            ErrorPayloadMapper.clientV3(this.connectionContext.getObjectMapper()));
+            ErrorPayloadMapper.clientV3(this.connectionContext.getJsonTypeRegistry()));
     }
 
     private static Function<UriComponentsBuilder, UriComponentsBuilder> getUriAugmenter(Object request, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
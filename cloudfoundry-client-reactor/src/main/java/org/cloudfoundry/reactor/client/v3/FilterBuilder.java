@@ -17,21 +17,23 @@
 package org.cloudfoundry.reactor.client.v3;
 
 import org.cloudfoundry.client.v3.FilterParameter;
-import org.cloudfoundry.reactor.client.MethodNameComparator;
+import org.cloudfoundry.reactor.client.MethodAccessor;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ObjectUtils;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 final class FilterBuilder {
 
+    private static final Map<Class<?>, List<MethodAccessor<FilterParameter>>> ACCESSORS = new ConcurrentHashMap<>();
+
     private FilterBuilder() {
     }
 
@@ -41,28 +43,22 @@ final class FilterBuilder {
      * @param builder  the builder to augment
      * @param instance the instance to inspect and invoke
      */
-    @SuppressWarnings("unchecked")
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(instance.getClass());
-        Arrays.sort(methods, MethodNameComparator.INSTANCE);
-
-        for (Method method : methods) {
-            FilterParameter filterParameter = AnnotationUtils.getAnnotation(method, FilterParameter.class);
-            if (filterParameter == null) {
-                continue;
-            }
-
-            String value = getValue(method, instance);
+        for (MethodAccessor<FilterParameter> accessor : ACCESSORS.computeIfAbsent(instance.getClass(), type -> MethodAccessor.create(type, FilterBuilder::getFilterParameter))) {
+            String value = getValue(accessor, instance);
             if (StringUtils.hasText(value)) {
-                builder.queryParam(filterParameter.value(), value);
+                builder.queryParam(accessor.getMetadata().value(), value);
             }
         }
     }
 
+    private static FilterParameter getFilterParameter(Method method) {
+        return AnnotationUtils.getAnnotation(method, FilterParameter.class);
+    }
+
     @SuppressWarnings("unchecked")
-    private static String getValue(Method method, Object instance) {
-        ReflectionUtils.makeAccessible(method);
-        Object value = ReflectionUtils.invokeMethod(method, instance);
+    private static String getValue(MethodAccessor<FilterParameter> accessor, Object instance) {
+        Object value = accessor.invoke(instance);
 
         if (value == null) {
             return "";
@@ -24,15 +24,26 @@ import org.cloudfoundry.doppler.StreamRequest;
 import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.util.MultipartDecoderChannelHandler;
+import org.cloudfoundry.util.FlightRecorderEventType;
+import org.cloudfoundry.util.FlightRecorderEventType.FlightRecorderEvent;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.ByteBufFlux;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
 
+    private static final FlightRecorderEventType ENVELOPE_BATCH_EVENT = FlightRecorderEventType.create("org.cloudfoundry.DopplerEnvelopeBatch", "Doppler Envelope Batch",
+        "A batch of envelopes received from a Doppler endpoint",
+        FlightRecorderEventType.field("endpoint", "Endpoint", String.class),
+        FlightRecorderEventType.field("envelopes", "Envelopes", long.class),
+        FlightRecorderEventType.field("bytes", "Bytes", long.class),
+        FlightRecorderEventType.field("error", "Error", String.class));
+
     ReactorDopplerEndpoints(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider) {
         super(connectionContext, root, tokenProvider);
     }
@@ -47,6 +58,7 @@ final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
                 .as(ByteBufFlux::fromInbound)
                 .aggregate()
                 .asByteArray(), Integer.MAX_VALUE)
+            .transform(recorded("containermetrics"))
             .map(ReactorDopplerEndpoints::toEnvelope);
     }
 
@@ -66,6 +78,7 @@ final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
                 .as(ByteBufFlux::fromInbound)
                 .aggregate()
                 .asByteArray(), Integer.MAX_VALUE)
+            .transform(recorded("recentlogs"))
             .map(ReactorDopplerEndpoints::toEnvelope);
     }
 
@@ -75,6 +88,26 @@ final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
             .map(ReactorDopplerEndpoints::toEnvelope);
     }
 
+    private static Function<Flux<byte[]>, Flux<byte[]>> recorded(String endpoint) {
+        return envelopes -> Flux.defer(() -> {
+            FlightRecorderEvent event = ENVELOPE_BATCH_EVENT.begin()
+                .set(0, endpoint);
+            AtomicLong bytes = new AtomicLong();
+            AtomicLong count = new AtomicLong();
+
+            return envelopes
+                .doOnNext(envelope -> {
+                    bytes.addAndGet(envelope.length);
+                    count.incrementAndGet();
+                })
+                .doOnError(t -> event.set(3, t.getClass().getName()))
+                .doFinally(signal -> event
+                    .set(1, count.get())
+                    .set(2, bytes.get())
+                    .commit());
+        });
+    }
+
     private static Envelope toEnvelope(byte[] bytes) {
         try {
             return Envelope.from(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.decode(bytes));
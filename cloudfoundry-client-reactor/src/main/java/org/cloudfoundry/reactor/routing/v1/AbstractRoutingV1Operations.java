@@ -35,10 +35,6 @@ public abstract class AbstractRoutingV1Operations extends AbstractReactorOperati
         return doGet(responseType, uriTransformer, outbound -> outbound, inbound -> inbound);
     }
 
-    protected final Mono<HttpClientResponse> get(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
-        return doGet(uriTransformer, outbound -> outbound, inbound -> inbound);
-    }
-
     protected final <T> Mono<T> post(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPost(request, responseType, uriTransformer, outbound -> outbound, inbound -> inbound);
     }
@@ -47,4 +43,8 @@ public abstract class AbstractRoutingV1Operations extends AbstractReactorOperati
         return doPut(request, responseType, uriTransformer, outbound -> outbound, inbound -> inbound);
     }
 
+    protected final Mono<HttpClientResponse> stream(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+        return doStream(uriTransformer, outbound -> outbound, inbound -> inbound);
+    }
+
 }
@@ -65,7 +65,7 @@ public class ReactorTcpRoutes extends AbstractRoutingV1Operations implements Tcp
 
     @Override
     public Flux<TcpRouteEvent> events(EventsRequest request) {
-        return get(builder -> builder.pathSegment("routing", "v1", "tcp_routes", "events"))
+        return stream(builder -> builder.pathSegment("routing", "v1", "tcp_routes", "events"))
             .flatMap(inbound -> inbound.addHandler(new EventStreamDecoderChannelHandler()).receiveObject().doOnCancel(() -> inbound.channel().close())) // TODO: No way this is the proper way to close.
             .cast(ServerSentEvent.class)
             .map(event -> {
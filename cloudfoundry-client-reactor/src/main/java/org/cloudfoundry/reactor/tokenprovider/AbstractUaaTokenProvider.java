@@ -23,6 +23,8 @@ import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.util.JsonCodec;
 import org.cloudfoundry.reactor.util.NetworkLogging;
+import org.cloudfoundry.util.FlightRecorderEventType;
+import org.cloudfoundry.util.FlightRecorderEventType.FlightRecorderEvent;
 import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +38,7 @@ import java.util.Base64;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 /**
  * An abstract base class for all token providers that interact with the UAA.  It encapsulates the logic to refresh the token before expiration.
@@ -46,6 +49,11 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
     private static final Duration REFRESH_MARGIN = Duration.ofSeconds(10);
 
+    private static final FlightRecorderEventType TOKEN_REFRESH_EVENT = FlightRecorderEventType.create("org.cloudfoundry.TokenRefresh", "Token Refresh", "A request for an access token from the UAA",
+        FlightRecorderEventType.field("tokenUri", "Token URI", String.class),
+        FlightRecorderEventType.field("refreshTokenGrant", "Refresh Token Grant", boolean.class),
+        FlightRecorderEventType.field("error", "Error", String.class));
+
     private final Object refreshTokenMonitor = new Object();
 
     private final ConcurrentMap<ConnectionContext, Mono<String>> tokens = new ConcurrentHashMap<>(1);
@@ -117,8 +125,9 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
                     .sendForm(this::tokenPayload)
                     .then())
                 .doOnSubscribe(NetworkLogging.post(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(JsonCodec.decode(connectionContext.getObjectMapper(), Map.class))
+                .transform(NetworkLogging.response(uri))
+                .transform(JsonCodec.decode(connectionContext.getJsonTypeRegistry(), Map.class))
+                .transform(recorded(uri)))
             .doOnNext(r -> {
                 synchronized (this.refreshTokenMonitor) {
                     this.refreshToken = (String) r.get("refresh_token");
@@ -135,6 +144,18 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
             .next();
     }
 
+    private <T> Function<Mono<T>, Mono<T>> recorded(String uri) {
+        return request -> Mono.defer(() -> {
+            FlightRecorderEvent event = TOKEN_REFRESH_EVENT.begin()
+                .set(0, uri)
+                .set(1, getRefreshToken() != null);
+
+            return request
+                .doOnError(t -> event.set(2, t.getClass().getName()))
+                .doFinally(signal -> event.commit());
+        });
+    }
+
     private void refreshTokenPayload(Form form, String refreshToken) {
         form
             .multipart(false)
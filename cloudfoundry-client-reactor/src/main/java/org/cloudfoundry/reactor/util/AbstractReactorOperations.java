@@ -17,17 +17,47 @@
 package org.cloudfoundry.reactor.util;
 
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.util.AsciiString;
+import org.cloudfoundry.reactor.CachedResponse;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.RequestCoalescer;
+import org.cloudfoundry.reactor.RequestObserver;
+import org.cloudfoundry.reactor.ResponseCache;
 import org.cloudfoundry.reactor.TokenProvider;
+import org.reactivestreams.Publisher;
+import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClient;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static io.netty.handler.codec.http.HttpMethod.DELETE;
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpMethod.PATCH;
+import static io.netty.handler.codec.http.HttpMethod.POST;
+import static io.netty.handler.codec.http.HttpMethod.PUT;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
+
 public abstract class AbstractReactorOperations {
 
     protected static final String APPLICATION_JSON = "application/json";
@@ -40,12 +70,20 @@ public abstract class AbstractReactorOperations {
 
     protected static final String CONTENT_TYPE = "Content-Type";
 
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(DELETE, GET, PUT));
+
+    private static final String SCOPE = "scope";
+
     private final ConnectionContext connectionContext;
 
     private final Mono<String> root;
 
     private final TokenProvider tokenProvider;
 
+    private volatile ParsedPrincipal parsedPrincipal;
+
+    private volatile ParsedRoot parsedRoot;
+
     protected AbstractReactorOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider) {
         this.connectionContext = connectionContext;
         this.root = root;
@@ -55,47 +93,84 @@ public abstract class AbstractReactorOperations {
     protected final <T> Mono<T> doDelete(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                          Function<HttpClientRequest, HttpClientRequest> requestTransformer, Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .delete(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .map(requestTransformer)
-                    .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
-                .doOnSubscribe(NetworkLogging.delete(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer))
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return exchange(DELETE, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                        .map(requestTransformer)
+                        .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
+                    .doOnSubscribe(NetworkLogging.delete(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .map(AbstractReactorOperations::decoded)
+                    .transform(paced(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            })
             .transform(deserializedResponse(responseType));
     }
 
     protected final <T> Mono<T> doGet(Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
                                       Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return doGet(uriTransformer, requestTransformer, responseTransformer)
-            .transform(deserializedResponse(responseType));
+        Optional<RequestCoalescer> requestCoalescer = this.connectionContext.getRequestCoalescer();
+        Optional<ResponseCache> responseCache = this.connectionContext.getResponseCache();
+
+        if (!requestCoalescer.isPresent() && !responseCache.isPresent()) {
+            return this.root
+                .then(root -> {
+                    String uri = buildUri(root, uriTransformer);
+
+                    return get(root, uri, requestTransformer, responseTransformer)
+                        .transform(deserializedResponse(responseType));
+                });
+        }
+
+        return this.root
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return this.tokenProvider.getToken(this.connectionContext)
+                    .map(this::getPrincipal)
+                    .then(principal -> responseCache
+                        .map(cache -> cachedGet(cache, root, uri, principal, responseType, requestTransformer, responseTransformer))
+                        .orElseGet(() -> get(root, uri, requestTransformer, responseTransformer)
+                            .transform(deserializedResponse(responseType)))
+                        .transform(coalesced(requestCoalescer, uri, principal, responseType)));
+            });
     }
 
     protected final Mono<HttpClientResponse> doGet(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
                                                    Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .get(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .map(requestTransformer)
-                    .then(HttpClientRequest::send))
-                .doOnSubscribe(NetworkLogging.get(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer));
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return get(root, uri, requestTransformer, responseTransformer);
+            });
+    }
+
+    protected final <T> Flux<T> doGetElements(String fieldName, Class<T> elementType, Consumer<Map<String, Object>> envelopeConsumer,
+                                              Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
+                                              Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+        return doGet(uriTransformer, requestTransformer, responseTransformer)
+            .as(deserializedElements(fieldName, elementType, envelopeConsumer));
     }
 
     protected final <T> Mono<T> doPatch(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                         Function<HttpClientRequest, HttpClientRequest> requestTransformer, Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .patch(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .map(requestTransformer)
-                    .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
-                .doOnSubscribe(NetworkLogging.patch(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer))
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return exchange(PATCH, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                        .map(requestTransformer)
+                        .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
+                    .doOnSubscribe(NetworkLogging.patch(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .map(AbstractReactorOperations::decoded)
+                    .transform(paced(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            })
             .transform(deserializedResponse(responseType));
     }
 
@@ -109,54 +184,98 @@ public abstract class AbstractReactorOperations {
     protected final <T> Mono<T> doPost(Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, Mono<Void>> requestTransformer,
                                        Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .post(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .then(requestTransformer))
-                .doOnSubscribe(NetworkLogging.post(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer))
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return exchange(POST, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                        .then(requestTransformer))
+                    .doOnSubscribe(NetworkLogging.post(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .map(AbstractReactorOperations::decoded)
+                    .transform(paced(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            })
             .transform(deserializedResponse(responseType));
     }
 
     protected final <T> Mono<T> doPut(Object request, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                       Function<HttpClientRequest, HttpClientRequest> requestTransformer, Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .put(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .map(requestTransformer)
-                    .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
-                .doOnSubscribe(NetworkLogging.put(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer))
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return exchange(PUT, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                        .map(requestTransformer)
+                        .then(o -> o.send(serializedRequest(o, request)).then()))  // TODO: Reactor 3.0.4 thenEmpty()
+                    .doOnSubscribe(NetworkLogging.put(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .map(AbstractReactorOperations::decoded)
+                    .transform(paced(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            })
             .transform(deserializedResponse(responseType));
     }
 
     protected final <T> Mono<T> doPut(Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, Mono<Void>> requestTransformer,
                                       Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .put(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .then(requestTransformer))
-                .doOnSubscribe(NetworkLogging.put(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer))
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return exchange(PUT, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                        .then(requestTransformer))
+                    .doOnSubscribe(NetworkLogging.put(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .map(AbstractReactorOperations::decoded)
+                    .transform(paced(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            })
             .transform(deserializedResponse(responseType));
     }
 
+    protected final Mono<HttpClientResponse> doStream(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
+                                                      Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+        return this.root
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return this.connectionContext.getStreamingHttpClient()
+                    .get(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
+                        .map(requestTransformer)
+                        .then(HttpClientRequest::send))
+                    .doOnSubscribe(NetworkLogging.get(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            });
+    }
+
     protected final Mono<HttpClientResponse> doWs(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
                                                   Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
         return this.root
-            .map(root -> buildUri(root, uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .get(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
-                    .map(requestTransformer)
-                    .then(request -> request.sendWebsocket().then()))  // TODO: Reactor 3.0.4 thenEmpty()
-                .doOnSubscribe(NetworkLogging.ws(uri))
-                .transform(NetworkLogging.response(uri))
-                .transform(responseTransformer));
+            .then(root -> {
+                String uri = buildUri(root, uriTransformer);
+
+                return this.connectionContext.getStreamingHttpClient()
+                    .get(uri, outbound -> addAuthorization(outbound, this.connectionContext, this.tokenProvider)
+                        .map(requestTransformer)
+                        .then(request -> request.sendWebsocket().then()))  // TODO: Reactor 3.0.4 thenEmpty()
+                    .doOnSubscribe(NetworkLogging.ws(uri))
+                    .transform(NetworkLogging.response(uri))
+                    .transform(circuitBroken(root, uri))
+                    .transform(responseTransformer);
+            });
+    }
+
+    private <T extends HttpClientRequest> T acceptEncoding(T outbound) {
+        if (Boolean.TRUE.equals(this.connectionContext.getResponseCompression())) {
+            outbound.header(HttpHeaderNames.ACCEPT_ENCODING, ContentDecoderChannelHandler.ACCEPT_ENCODING);
+        }
+
+        return outbound;
     }
 
     private static <T extends HttpClientRequest> Mono<T> addAuthorization(T outbound, ConnectionContext connectionContext, TokenProvider tokenProvider) {
@@ -167,22 +286,241 @@ public abstract class AbstractReactorOperations {
             });
     }
 
-    private static String buildUri(String root, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
-        return uriTransformer
-            .apply(UriComponentsBuilder.fromUriString(root))
-            .build().encode().toUriString();
+    private Mono<HttpClientResponse> attempt(HttpMethod method, String uri, Function<? super HttpClientRequest, ? extends Publisher<Void>> handler, int retries) {
+        return observed(method, uri, handler, retries)
+            .transform(hedged(method, uri))
+            .transform(limited(uri));  // limited per attempt, so that no permit is held while waiting to retry
+    }
+
+    private String buildUri(String root, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+        return UriEncoder.toUriString(uriTransformer
+            .apply(UriComponentsBuilder.newInstance().uriComponents(getRootComponents(root)))
+            .build());
+    }
+
+    private <T> Mono<T> cachedGet(ResponseCache responseCache, String root, String uri, String principal, Class<T> responseType, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
+                                  Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+        return Mono.defer(() -> {
+            Optional<CachedResponse> cached = responseCache.get(uri, principal)
+                .filter(response -> responseType.isInstance(response.getBody()));
+
+            if (cached.isPresent() && !cached.get().isRevalidatable()) {
+                return Mono.just(responseType.cast(cached.get().getBody()));
+            }
+
+            return get(root, uri, requestTransformer.andThen(conditional(cached)), responseTransformer)
+                .then(response -> {
+                    if (cached.isPresent() && response.status().code() == NOT_MODIFIED.code()) {
+                        return response.receive().then()
+                            .then(Mono.just(responseType.cast(cached.get().getBody())));
+                    }
+
+                    return Mono.just(response)
+                        .transform(deserializedResponse(responseType))
+                        .doOnNext(body -> {
+                            if (!isNoStore(response)) {
+                                responseCache.put(uri, principal, cachedResponse(body, response));
+                            }
+                        });
+                });
+        });
+    }
+
+    private static CachedResponse cachedResponse(Object body, HttpClientResponse response) {
+        return CachedResponse.builder()
+            .body(body)
+            .entityTag(Optional.ofNullable(response.responseHeaders().get(HttpHeaderNames.ETAG)))
+            .lastModified(Optional.ofNullable(response.responseHeaders().get(HttpHeaderNames.LAST_MODIFIED)))
+            .build();
+    }
+
+    private Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> circuitBroken(String root, String uri) {
+        return exchange -> this.connectionContext.getCircuitBreaker()
+            .map(circuitBreaker -> circuitBreaker.protect(root, uri, exchange))
+            .orElse(exchange);
+    }
+
+    private static <T> Function<Mono<T>, Mono<T>> coalesced(Optional<RequestCoalescer> requestCoalescer, String uri, String principal, Class<T> responseType) {
+        return request -> requestCoalescer
+            .map(coalescer -> coalescer.coalesce(Arrays.asList(uri, principal, responseType), request))
+            .orElse(request);
+    }
+
+    private static Function<HttpClientRequest, HttpClientRequest> conditional(Optional<CachedResponse> cached) {
+        return outbound -> {
+            cached.flatMap(CachedResponse::getEntityTag).ifPresent(entityTag -> outbound.header(HttpHeaderNames.IF_NONE_MATCH, entityTag));
+            cached.flatMap(CachedResponse::getLastModified).ifPresent(lastModified -> outbound.header(HttpHeaderNames.IF_MODIFIED_SINCE, lastModified));
+            return outbound;
+        };
+    }
+
+    private static HttpClientResponse decoded(HttpClientResponse response) {
+        ContentDecoderChannelHandler.from(response)
+            .ifPresent(contentDecoder -> response.addHandler("contentDecoder", contentDecoder));
+
+        return response;
+    }
+
+    private <T> Function<Mono<HttpClientResponse>, Flux<T>> deserializedElements(String fieldName, Class<T> elementType, Consumer<Map<String, Object>> envelopeConsumer) {
+        return inbound -> inbound
+            .as(JsonCodec.decodeElements(this.connectionContext.getJsonTypeRegistry(), fieldName, elementType, envelopeConsumer))
+            .doOnError(JsonParsingException.class, e -> NetworkLogging.RESPONSE_LOGGER.debug("{}\n{}", e.getCause().getMessage(), e.getPayload()));
     }
 
     private <T> Function<Mono<HttpClientResponse>, Mono<T>> deserializedResponse(Class<T> responseType) {
         return inbound -> inbound
-            .transform(JsonCodec.decode(this.connectionContext.getObjectMapper(), responseType))
+            .transform(JsonCodec.decode(this.connectionContext.getJsonTypeRegistry(), responseType))
             .doOnError(JsonParsingException.class, e -> NetworkLogging.RESPONSE_LOGGER.debug("{}\n{}", e.getCause().getMessage(), e.getPayload()));
     }
 
+    private Mono<HttpClientResponse> exchange(HttpMethod method, String uri, Function<? super HttpClientRequest, ? extends Publisher<Void>> handler) {
+        if (IDEMPOTENT_METHODS.contains(method)) {
+            return this.connectionContext.getRetryPolicy()
+                .map(retryPolicy -> retryPolicy.retry(uri, retries -> attempt(method, uri, handler, retries)))
+                .orElseGet(() -> attempt(method, uri, handler, 0));
+        }
+
+        return attempt(method, uri, handler, 0);
+    }
+
+    private Mono<HttpClientResponse> get(String root, String uri, Function<HttpClientRequest, HttpClientRequest> requestTransformer,
+                                         Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+        return exchange(GET, uri, outbound -> addAuthorization(acceptEncoding(outbound), this.connectionContext, this.tokenProvider)
+                .map(requestTransformer)
+                .then(HttpClientRequest::send))
+            .doOnSubscribe(NetworkLogging.get(uri))
+            .transform(NetworkLogging.response(uri))
+            .map(AbstractReactorOperations::decoded)
+            .transform(paced(uri))
+            .transform(circuitBroken(root, uri))
+            .transform(responseTransformer);
+    }
+
+    private String getPrincipal(String token) {
+        ParsedPrincipal parsedPrincipal = this.parsedPrincipal;
+
+        if (parsedPrincipal == null || !parsedPrincipal.token.equals(token)) {
+            parsedPrincipal = new ParsedPrincipal(token, parsePrincipal(token));
+            this.parsedPrincipal = parsedPrincipal;
+        }
+
+        return parsedPrincipal.principal;
+    }
+
+    private UriComponents getRootComponents(String root) {
+        ParsedRoot parsedRoot = this.parsedRoot;
+
+        if (parsedRoot == null || !parsedRoot.root.equals(root)) {
+            parsedRoot = new ParsedRoot(root, UriComponentsBuilder.fromUriString(root).build());
+            this.parsedRoot = parsedRoot;
+        }
+
+        return parsedRoot.components;
+    }
+
+    private Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> hedged(HttpMethod method, String uri) {
+        return exchange -> this.connectionContext.getRequestHedger()
+            .filter(requestHedger -> GET.equals(method))
+            .map(requestHedger -> requestHedger.hedge(uri, exchange))
+            .orElse(exchange);
+    }
+
+    private static boolean isNoStore(HttpClientResponse response) {
+        return response.responseHeaders().containsValue(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_STORE, true);
+    }
+
+    private Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> limited(String uri) {
+        return exchange -> this.connectionContext.getConcurrencyLimiter()
+            .map(concurrencyLimiter -> concurrencyLimiter.limit(uri, exchange))
+            .orElse(exchange);
+    }
+
+    private Mono<HttpClientResponse> observed(HttpMethod method, String uri, Function<? super HttpClientRequest, ? extends Publisher<Void>> handler, int retries) {
+        HttpClient httpClient = this.connectionContext.getHttpClient();
+        Optional<RequestObserver> requestObserver = this.connectionContext.getRequestObserver();
+
+        if (!requestObserver.isPresent() && !ExchangeObservation.isRecorded()) {
+            return httpClient.request(method, uri, handler);
+        }
+
+        return Mono.defer(() -> {
+            ExchangeObservation observation = new ExchangeObservation(requestObserver, method.name(), uri, retries);
+
+            return httpClient.request(method, uri, outbound -> handler.apply(observation.attach(outbound)))
+                .doOnSubscribe(observation::start)
+                .doOnError(observation::error)
+                .doOnCancel(observation::cancel);
+        });
+    }
+
+    private Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> paced(String uri) {
+        return exchange -> this.connectionContext.getRequestPacer()
+            .map(requestPacer -> requestPacer.pace(this.tokenProvider, uri, this.connectionContext.getRequestPriority(), exchange))
+            .orElse(exchange);
+    }
+
+    private static String parsePrincipal(String token) {
+        int signature = token.lastIndexOf('.');
+
+        if (signature == -1) {
+            return token;
+        }
+
+        Claims claims;
+        try {
+            claims = Jwts.parser().parseClaimsJwt(token.substring(0, signature + 1)).getBody();
+        } catch (ExpiredJwtException e) {
+            claims = e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            return token;  // not a JWT, so fall back to the token itself
+        }
+
+        if (claims.getSubject() == null) {
+            return token;
+        }
+
+        Set<String> scopes = new TreeSet<>();
+        Object scope = claims.get(SCOPE);
+        if (scope instanceof Collection) {
+            ((Collection<?>) scope).forEach(s -> scopes.add(String.valueOf(s)));
+        } else if (scope != null) {
+            scopes.addAll(Arrays.asList(String.valueOf(scope).split(" ")));
+        }
+
+        return String.format("%s %s", claims.getSubject(), scopes);
+    }
+
     private Mono<ByteBuf> serializedRequest(HttpClientRequest outbound, Object request) {
-        return Mono.just(request)
-            .filter(req -> this.connectionContext.getObjectMapper().canSerialize(req.getClass()))
-            .map(JsonCodec.encode(this.connectionContext.getObjectMapper(), outbound));
+        JsonTypeRegistry jsonTypeRegistry = this.connectionContext.getJsonTypeRegistry();
+
+        return Mono.justOrEmpty(jsonTypeRegistry.getWriter(request.getClass()))
+            .map(JsonCodec.encode(jsonTypeRegistry, request, outbound));
+    }
+
+    private static final class ParsedPrincipal {
+
+        private final String principal;
+
+        private final String token;
+
+        private ParsedPrincipal(String token, String principal) {
+            this.principal = principal;
+            this.token = token;
+        }
+
+    }
+
+    private static final class ParsedRoot {
+
+        private final UriComponents components;
+
+        private final String root;
+
+        private ParsedRoot(String root, UriComponents components) {
+            this.components = components;
+            this.root = root;
+        }
+
     }
 
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.LastHttpContent;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.util.Optional;
+
+/**
+ * Decodes a {@code gzip} or {@code deflate} encoded response payload as it is received, so that handlers added after it see the decoded payload
+ */
+public final class ContentDecoderChannelHandler extends ChannelInboundHandlerAdapter {
+
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final EmbeddedChannel decoder;
+
+    private ContentDecoderChannelHandler(ZlibWrapper wrapper) {
+        this.decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(wrapper));
+    }
+
+    /**
+     * Returns a handler for the content encoding of a response
+     *
+     * @param response the response
+     * @return a handler that decodes the payload of the response, or empty if the payload is not encoded
+     */
+    public static Optional<ContentDecoderChannelHandler> from(HttpClientResponse response) {
+        String contentEncoding = response.responseHeaders().get(HttpHeaderNames.CONTENT_ENCODING);
+
+        if (HttpHeaderValues.GZIP.contentEqualsIgnoreCase(contentEncoding) || HttpHeaderValues.X_GZIP.contentEqualsIgnoreCase(contentEncoding)) {
+            return Optional.of(new ContentDecoderChannelHandler(ZlibWrapper.GZIP));
+        } else if (HttpHeaderValues.DEFLATE.contentEqualsIgnoreCase(contentEncoding) || HttpHeaderValues.X_DEFLATE.contentEqualsIgnoreCase(contentEncoding)) {
+            return Optional.of(new ContentDecoderChannelHandler(ZlibWrapper.ZLIB_OR_NONE));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext context, Object message) throws Exception {
+        if (!(message instanceof HttpContent)) {
+            super.channelRead(context, message);
+            return;
+        }
+
+        HttpContent content = (HttpContent) message;
+
+        try {
+            this.decoder.writeInbound(content.content().retain());
+            fireDecoded(context);
+
+            if (content instanceof LastHttpContent) {
+                this.decoder.finish();
+                fireDecoded(context);
+
+                LastHttpContent last = new DefaultLastHttpContent();
+                last.trailingHeaders().set(((LastHttpContent) content).trailingHeaders());
+                context.fireChannelRead(last);
+            }
+        } finally {
+            content.release();
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext context) throws Exception {
+        this.decoder.finishAndReleaseAll();
+        super.handlerRemoved(context);
+    }
+
+    private void fireDecoded(ChannelHandlerContext context) {
+        ByteBuf byteBuf;
+
+        while ((byteBuf = this.decoder.readInbound()) != null) {
+            if (byteBuf.isReadable()) {
+                context.fireChannelRead(new DefaultHttpContent(byteBuf));
+            } else {
+                byteBuf.release();
+            }
+        }
+    }
+
+}
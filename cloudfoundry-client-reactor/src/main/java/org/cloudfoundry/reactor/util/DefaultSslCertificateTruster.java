@@ -19,6 +19,8 @@ package org.cloudfoundry.reactor.util;
 import org.cloudfoundry.reactor.ProxyConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyContext;
 import reactor.ipc.netty.options.ClientOptions;
 import reactor.ipc.netty.tcp.TcpClient;
 import reactor.util.function.Tuple2;
@@ -34,9 +36,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
-import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -46,14 +47,18 @@ public final class DefaultSslCertificateTruster implements SslCertificateTruster
 
     private final AtomicReference<X509TrustManager> delegate;
 
+    private final Map<Tuple2<String, Integer>, Mono<Void>> probes = new ConcurrentHashMap<>();
+
     private final Optional<ProxyConfiguration> proxyConfiguration;
 
-    private final Set<Tuple2<String, Integer>> trustedHostsAndPorts;
+    private final TrustManagerFactory trustManagerFactory;
+
+    private KeyStore trustStore;
 
     public DefaultSslCertificateTruster(Optional<ProxyConfiguration> proxyConfiguration) {
         this.proxyConfiguration = proxyConfiguration;
-        this.delegate = new AtomicReference<>(getTrustManager(getTrustManagerFactory(null)));
-        this.trustedHostsAndPorts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        this.trustManagerFactory = getTrustManagerFactory(null);
+        this.delegate = new AtomicReference<>(getTrustManager(this.trustManagerFactory));
     }
 
     @Override
@@ -73,39 +78,38 @@ public final class DefaultSslCertificateTruster implements SslCertificateTruster
 
     @Override
     public void trust(String host, int port, Duration duration) {
-        Tuple2<String, Integer> hostAndPort = Tuples.of(host, port);
-        if (this.trustedHostsAndPorts.contains(hostAndPort)) {
-            return;
-        }
+        trustAsync(host, port, duration).block();
+    }
 
-        this.logger.warn("Trusting SSL Certificate for {}:{}", host, port);
+    @Override
+    public Mono<Void> trustAsync(String host, int port, Duration duration) {
+        Tuple2<String, Integer> hostAndPort = Tuples.of(host, port);
 
-        X509TrustManager trustManager = this.delegate.get();
-        X509Certificate[] untrustedCertificates = getUntrustedCertificates(duration, host, port, this.proxyConfiguration, trustManager);
+        return this.probes.computeIfAbsent(hostAndPort, key -> probe(host, port, duration)
+            .doOnError(t -> this.probes.remove(key))
+            .cache());
+    }
 
-        if (untrustedCertificates != null) {
-            KeyStore trustStore = addToTrustStore(untrustedCertificates, trustManager);
-            this.delegate.set(getTrustManager(getTrustManagerFactory(trustStore)));
+    private static void addCertificates(KeyStore trustStore, X509Certificate[] certificates) throws KeyStoreException {
+        for (X509Certificate certificate : certificates) {
+            if (trustStore.getCertificateAlias(certificate) == null) {
+                trustStore.setCertificateEntry(String.valueOf(trustStore.size()), certificate);
+            }
         }
-
-        this.trustedHostsAndPorts.add(hostAndPort);
-        this.logger.debug("Trusted SSL Certificate for {}:{}", host, port);
     }
 
-    private static KeyStore addToTrustStore(X509Certificate[] untrustedCertificates, X509TrustManager trustManager) {
+    private synchronized void addToTrustStore(X509Certificate[] untrustedCertificates) {
         try {
-            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
-            trustStore.load(null);
-
-            int count = 0;
-            for (X509Certificate certificate : untrustedCertificates) {
-                trustStore.setCertificateEntry(String.valueOf(count++), certificate);
-            }
-            for (X509Certificate certificate : trustManager.getAcceptedIssuers()) {
-                trustStore.setCertificateEntry(String.valueOf(count++), certificate);
+            if (this.trustStore == null) {
+                this.trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+                this.trustStore.load(null);
+                addCertificates(this.trustStore, this.delegate.get().getAcceptedIssuers());
             }
 
-            return trustStore;
+            addCertificates(this.trustStore, untrustedCertificates);
+
+            this.trustManagerFactory.init(this.trustStore);
+            this.delegate.set(getTrustManager(this.trustManagerFactory));
         } catch (CertificateException | NoSuchAlgorithmException | IOException | KeyStoreException e) {
             throw new RuntimeException(e);
         }
@@ -141,13 +145,7 @@ public final class DefaultSslCertificateTruster implements SslCertificateTruster
         }
     }
 
-    private static X509Certificate[] getUntrustedCertificates(Duration duration, String host, int port, Optional<ProxyConfiguration> proxyConfiguration, X509TrustManager delegate) {
-        CertificateCollectingTrustManager collector = new CertificateCollectingTrustManager(delegate);
-
-        getTcpClient(proxyConfiguration, collector, host, port)
-            .newHandler((inbound, outbound) -> inbound.receive().then())
-            .block(duration);
-
+    private static X509Certificate[] getUntrustedCertificates(CertificateCollectingTrustManager collector) {
         X509Certificate[] chain = collector.getCollectedCertificateChain();
         if (chain == null) {
             throw new IllegalStateException("Could not obtain server certificate chain");
@@ -160,4 +158,20 @@ public final class DefaultSslCertificateTruster implements SslCertificateTruster
         }
     }
 
+    private Mono<Void> probe(String host, int port, Duration duration) {
+        return Mono.defer(() -> {
+            this.logger.warn("Trusting SSL Certificate for {}:{}", host, port);
+            CertificateCollectingTrustManager collector = new CertificateCollectingTrustManager(this.delegate.get());
+
+            return getTcpClient(this.proxyConfiguration, collector, host, port)
+                .newHandler((inbound, outbound) -> inbound.receive().then())
+                .timeout(duration)
+                .doOnNext(NettyContext::dispose)
+                .then(context -> Mono.justOrEmpty(getUntrustedCertificates(collector)))
+                .doOnNext(this::addToTrustStore)
+                .doOnSuccess(certificates -> this.logger.debug("Trusted SSL Certificate for {}:{}", host, port))
+                .then();
+        });
+    }
+
 }
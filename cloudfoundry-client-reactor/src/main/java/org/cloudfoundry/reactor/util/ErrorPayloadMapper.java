@@ -17,6 +17,7 @@
 package org.cloudfoundry.reactor.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.netty.handler.codec.http.HttpStatusClass;
 import org.cloudfoundry.UnknownCloudFoundryException;
 import org.cloudfoundry.client.v2.ClientV2Exception;
@@ -34,11 +35,16 @@ import static io.netty.handler.codec.http.HttpStatusClass.SERVER_ERROR;
 
 public final class ErrorPayloadMapper {
 
-    @SuppressWarnings("unchecked")
     public static Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> clientV2(ObjectMapper objectMapper) {
+        return clientV2(new JsonTypeRegistry(objectMapper));
+    }
+
+    public static Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> clientV2(JsonTypeRegistry jsonTypeRegistry) {
+        ObjectReader reader = jsonTypeRegistry.getReader(Map.class);
+
         return inbound -> inbound
-            .then(mapToError(objectMapper, (statusCode, payload) -> {
-                Map<String, Object> map = objectMapper.readValue(payload, Map.class);
+            .then(mapToError((statusCode, payload) -> {
+                Map<String, Object> map = reader.readValue(payload);
                 Integer code = (Integer) map.get("code");
                 String description = (String) map.get("description");
                 String errorCode = (String) map.get("error_code");
@@ -47,11 +53,16 @@ public final class ErrorPayloadMapper {
             }));
     }
 
-    @SuppressWarnings("unchecked")
     public static Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> clientV3(ObjectMapper objectMapper) {
+        return clientV3(new JsonTypeRegistry(objectMapper));
+    }
+
+    public static Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> clientV3(JsonTypeRegistry jsonTypeRegistry) {
+        ObjectReader reader = jsonTypeRegistry.getReader(Map.class);
+
         return inbound -> inbound
-            .then(mapToError(objectMapper, (statusCode, payload) -> {
-                List<ClientV3Exception.Error> errors = ((Map<String, List<Map<String, Object>>>) objectMapper.readValue(payload, Map.class)).get("errors").stream()
+            .then(mapToError((statusCode, payload) -> {
+                List<ClientV3Exception.Error> errors = reader.<Map<String, List<Map<String, Object>>>>readValue(payload).get("errors").stream()
                     .map(map -> {
                         Integer code = (Integer) map.get("code");
                         String detail = (String) map.get("detail");
@@ -70,7 +81,7 @@ public final class ErrorPayloadMapper {
         return statusClass != CLIENT_ERROR && statusClass != SERVER_ERROR;
     }
 
-    private static Function<HttpClientResponse, Mono<HttpClientResponse>> mapToError(ObjectMapper objectMapper, ExceptionGenerator exceptionGenerator) {
+    private static Function<HttpClientResponse, Mono<HttpClientResponse>> mapToError(ExceptionGenerator exceptionGenerator) {
         return response -> {
             if (isError(response)) {
                 return Mono.just(response);
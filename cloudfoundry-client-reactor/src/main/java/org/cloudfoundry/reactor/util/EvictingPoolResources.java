@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A {@link PoolResources} that closes the pooled connections of another {@link PoolResources} before they go stale.  A connection is closed once it has been idle in the pool for longer than the
+ * maximum idle time, and when it is released after being open for longer than the maximum lifetime.  Closed connections are discarded by the pool the next time they would be acquired, so that
+ * requests are not sent on connections that a server or load balancer has already given up on.  An idle connection is either evicted or acquired, never both: a connection that is evicted while it is
+ * being acquired is released and another one acquired in its place.
+ */
+public final class EvictingPoolResources implements PoolResources {
+
+    private static final AttributeKey<Long> CREATED = AttributeKey.valueOf("cloudfoundry-client.created");
+
+    private static final Long EVICTED = Long.MIN_VALUE;
+
+    private static final AttributeKey<Long> IDLE_SINCE = AttributeKey.valueOf("cloudfoundry-client.idleSince");
+
+    private final PoolResources delegate;
+
+    private final Optional<Duration> maxIdleTime;
+
+    private final Optional<Duration> maxLifetime;
+
+    private final Map<ChannelPool, ChannelPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance
+     *
+     * @param delegate    the {@link PoolResources} whose connections to evict
+     * @param maxIdleTime the (optional) maximum time a connection may be idle in the pool
+     * @param maxLifetime the (optional) maximum time a connection may be open
+     */
+    public EvictingPoolResources(PoolResources delegate, Optional<Duration> maxIdleTime, Optional<Duration> maxLifetime) {
+        this.delegate = delegate;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifetime = maxLifetime;
+    }
+
+    @Override
+    public void dispose() {
+        this.delegate.dispose();
+    }
+
+    @Override
+    public ChannelPool selectOrCreate(SocketAddress address, Supplier<? extends Bootstrap> bootstrap) {
+        return this.pools.computeIfAbsent(this.delegate.selectOrCreate(address, bootstrap), EvictingChannelPool::new);
+    }
+
+    private boolean acquired(Channel channel) {
+        channel.attr(CREATED).setIfAbsent(System.nanoTime());
+        return channel.attr(IDLE_SINCE).getAndSet(null) != EVICTED;
+    }
+
+    private void evictIfIdle(Channel channel, Long idleSince) {
+        if (channel.attr(IDLE_SINCE).compareAndSet(idleSince, EVICTED)) {
+            channel.close();
+        }
+    }
+
+    private boolean isExpired(Channel channel) {
+        Long created = channel.attr(CREATED).get();
+
+        return created != null && this.maxLifetime
+            .map(maxLifetime -> System.nanoTime() - created >= maxLifetime.toNanos())
+            .orElse(false);
+    }
+
+    private void released(Channel channel) {
+        if (isExpired(channel)) {
+            channel.close();
+            return;
+        }
+
+        this.maxIdleTime.ifPresent(maxIdleTime -> {
+            Long idleSince = System.nanoTime();
+            channel.attr(IDLE_SINCE).set(idleSince);
+            channel.eventLoop().schedule(() -> evictIfIdle(channel, idleSince), maxIdleTime.toNanos(), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private final class EvictingChannelPool implements ChannelPool {
+
+        private final ChannelPool delegate;
+
+        private EvictingChannelPool(ChannelPool delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Future<Channel> acquire() {
+            return acquire(ImmediateEventExecutor.INSTANCE.newPromise());
+        }
+
+        @Override
+        public Future<Channel> acquire(Promise<Channel> promise) {
+            this.delegate.acquire().addListener((FutureListener<Channel>) future -> onAcquire(future, promise));
+            return promise;
+        }
+
+        @Override
+        public void close() {
+            this.delegate.close();
+        }
+
+        @Override
+        public Future<Void> release(Channel channel) {
+            released(channel);
+            return this.delegate.release(channel);
+        }
+
+        @Override
+        public Future<Void> release(Channel channel, Promise<Void> promise) {
+            released(channel);
+            return this.delegate.release(channel, promise);
+        }
+
+        private void onAcquire(Future<Channel> future, Promise<Channel> promise) {
+            if (!future.isSuccess()) {
+                promise.tryFailure(future.cause());
+                return;
+            }
+
+            Channel channel = future.getNow();
+
+            if (!acquired(channel)) {
+                this.delegate.release(channel);
+                acquire(promise);
+            } else if (!promise.trySuccess(channel)) {
+                release(channel);
+            }
+        }
+
+    }
+
+}
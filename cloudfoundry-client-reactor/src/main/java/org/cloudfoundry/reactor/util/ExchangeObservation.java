@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.cloudfoundry.reactor.ObservedExchange;
+import org.cloudfoundry.reactor.RequestObserver;
+import org.cloudfoundry.util.FlightRecorderEventType;
+import org.cloudfoundry.util.FlightRecorderEventType.FlightRecorderEvent;
+import org.reactivestreams.Subscription;
+import reactor.ipc.netty.NettyPipeline;
+import reactor.ipc.netty.http.client.HttpClientRequest;
+
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports an HTTP exchange to a {@link RequestObserver} and as a {@code org.cloudfoundry.CloudFoundryHttpExchange} Flight Recorder event.  While the exchange is in progress the observation sits in
+ * the channel pipeline, after the HTTP codec, counting the payload bytes that pass through it.
+ */
+final class ExchangeObservation extends ChannelDuplexHandler implements ObservedExchange {
+
+    private static final FlightRecorderEventType EXCHANGE_EVENT = FlightRecorderEventType.create("org.cloudfoundry.CloudFoundryHttpExchange", "Cloud Foundry HTTP Exchange",
+        "An HTTP exchange with a Cloud Foundry API",
+        FlightRecorderEventType.field("method", "Method", String.class),
+        FlightRecorderEventType.field("path", "Path", String.class),
+        FlightRecorderEventType.field("status", "Status", int.class),
+        FlightRecorderEventType.field("retries", "Retries", int.class),
+        FlightRecorderEventType.field("bytesIn", "Bytes In", long.class),
+        FlightRecorderEventType.field("bytesOut", "Bytes Out", long.class),
+        FlightRecorderEventType.timespan("timeToFirstByte", "Time to First Byte"),
+        FlightRecorderEventType.field("error", "Error", String.class));
+
+    private static final String NAME = "exchangeObservation";
+
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private final String method;
+
+    private final String path;
+
+    private final Optional<RequestObserver> requestObserver;
+
+    private final int retries;
+
+    private volatile long bytesIn;
+
+    private volatile long bytesOut;
+
+    private volatile FlightRecorderEvent event;
+
+    private volatile long firstByte;
+
+    private volatile ChannelPipeline pipeline;
+
+    private volatile long start;
+
+    private volatile int status = -1;
+
+    ExchangeObservation(Optional<RequestObserver> requestObserver, String method, String uri, int retries) {
+        this.method = method;
+        this.path = PathTemplates.getPathTemplate(uri);
+        this.requestObserver = requestObserver;
+        this.retries = retries;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext context) throws Exception {
+        error(new ClosedChannelException());
+        super.channelInactive(context);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext context, Object message) throws Exception {
+        if (message instanceof HttpResponse) {
+            this.firstByte = System.nanoTime();
+            this.status = ((HttpResponse) message).status().code();
+            this.requestObserver.ifPresent(requestObserver -> requestObserver.onFirstByte(this));
+        }
+
+        if (message instanceof HttpContent) {
+            this.bytesIn += ((HttpContent) message).content().readableBytes();
+        }
+
+        boolean last = message instanceof LastHttpContent;
+        super.channelRead(context, message);
+
+        if (last && this.done.compareAndSet(false, true)) {
+            detach();
+            record(null);
+            this.requestObserver.ifPresent(requestObserver -> requestObserver.onComplete(this));
+        }
+    }
+
+    @Override
+    public long getBytesIn() {
+        return this.bytesIn;
+    }
+
+    @Override
+    public long getBytesOut() {
+        return this.bytesOut;
+    }
+
+    @Override
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - this.start);
+    }
+
+    @Override
+    public String getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public int getRetries() {
+        return this.retries;
+    }
+
+    @Override
+    public Optional<Integer> getStatus() {
+        return this.status < 0 ? Optional.empty() : Optional.of(this.status);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext context, Object message, ChannelPromise promise) throws Exception {
+        if (message instanceof ByteBuf) {
+            this.bytesOut += ((ByteBuf) message).readableBytes();
+        } else if (message instanceof ByteBufHolder) {
+            this.bytesOut += ((ByteBufHolder) message).content().readableBytes();
+        } else if (message instanceof FileRegion) {
+            this.bytesOut += ((FileRegion) message).count();
+        }
+
+        super.write(context, message, promise);
+    }
+
+    <T extends HttpClientRequest> T attach(T outbound) {
+        ChannelPipeline pipeline = outbound.context().channel().pipeline();
+
+        if (pipeline.get(NAME) != null) {
+            pipeline.remove(NAME);
+        }
+
+        if (pipeline.get(NettyPipeline.HttpEncoder) != null) {
+            pipeline.addAfter(NettyPipeline.HttpEncoder, NAME, this);
+            this.pipeline = pipeline;
+        }
+
+        return outbound;
+    }
+
+    void cancel() {
+        if (this.status < 0 && this.done.compareAndSet(false, true)) {
+            detach();
+        }
+    }
+
+    void error(Throwable error) {
+        if (this.done.compareAndSet(false, true)) {
+            detach();
+            record(error);
+            this.requestObserver.ifPresent(requestObserver -> requestObserver.onError(this, error));
+        }
+    }
+
+    static boolean isRecorded() {
+        return EXCHANGE_EVENT.isEnabled();
+    }
+
+    void start(Subscription subscription) {
+        this.event = EXCHANGE_EVENT.begin();
+        this.start = System.nanoTime();
+        this.requestObserver.ifPresent(requestObserver -> requestObserver.onStart(this));
+    }
+
+    private void detach() {
+        ChannelPipeline pipeline = this.pipeline;
+
+        if (pipeline != null && pipeline.context(this) != null) {
+            pipeline.remove(this);
+        }
+    }
+
+    private void record(Throwable error) {
+        FlightRecorderEvent event = this.event;
+
+        if (event != null) {
+            event
+                .set(0, this.method)
+                .set(1, this.path)
+                .set(2, this.status)
+                .set(3, this.retries)
+                .set(4, this.bytesIn)
+                .set(5, this.bytesOut)
+                .set(6, this.status < 0 ? 0L : this.firstByte - this.start)
+                .set(7, error == null ? null : error.getClass().getName())
+                .commit();
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A {@link PoolResources} that counts the connections acquired from, and waiting on, the pools of another {@link PoolResources}
+ */
+public final class InstrumentedPoolResources implements PoolResources {
+
+    private final AtomicInteger acquired = new AtomicInteger();
+
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    private final PoolResources delegate;
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final String name;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Map<ChannelPool, ChannelPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance
+     *
+     * @param name     the name of the pool
+     * @param delegate the {@link PoolResources} to instrument
+     */
+    public InstrumentedPoolResources(String name, PoolResources delegate) {
+        this.delegate = delegate;
+        this.name = name;
+    }
+
+    @Override
+    public void dispose() {
+        this.delegate.dispose();
+    }
+
+    /**
+     * Returns the number of connections currently acquired from the pool
+     *
+     * @return the number of acquired connections
+     */
+    public int getAcquired() {
+        return this.acquired.get();
+    }
+
+    /**
+     * Returns the total number of connections successfully acquired from the pool
+     *
+     * @return the number of acquisitions
+     */
+    public long getAcquisitions() {
+        return this.acquisitions.get();
+    }
+
+    /**
+     * Returns the total number of acquisitions that failed, typically because the acquire timeout elapsed
+     *
+     * @return the number of failed acquisitions
+     */
+    public long getFailures() {
+        return this.failures.get();
+    }
+
+    /**
+     * Returns the name of the pool
+     *
+     * @return the name of the pool
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of acquisitions currently waiting for a connection
+     *
+     * @return the number of pending acquisitions
+     */
+    public int getPending() {
+        return this.pending.get();
+    }
+
+    @Override
+    public ChannelPool selectOrCreate(SocketAddress address, Supplier<? extends Bootstrap> bootstrap) {
+        return this.pools.computeIfAbsent(this.delegate.selectOrCreate(address, bootstrap), InstrumentedChannelPool::new);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{acquired=%d, pending=%d, acquisitions=%d, failures=%d}", this.name, getAcquired(), getPending(), getAcquisitions(), getFailures());
+    }
+
+    private final class InstrumentedChannelPool implements ChannelPool {
+
+        private final ChannelPool delegate;
+
+        private InstrumentedChannelPool(ChannelPool delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Future<Channel> acquire() {
+            return counted(this.delegate::acquire);
+        }
+
+        @Override
+        public Future<Channel> acquire(Promise<Channel> promise) {
+            return counted(() -> this.delegate.acquire(promise));
+        }
+
+        @Override
+        public void close() {
+            this.delegate.close();
+        }
+
+        @Override
+        public Future<Void> release(Channel channel) {
+            InstrumentedPoolResources.this.acquired.decrementAndGet();
+            return this.delegate.release(channel);
+        }
+
+        @Override
+        public Future<Void> release(Channel channel, Promise<Void> promise) {
+            InstrumentedPoolResources.this.acquired.decrementAndGet();
+            return this.delegate.release(channel, promise);
+        }
+
+        private Future<Channel> counted(Supplier<Future<Channel>> acquisition) {
+            InstrumentedPoolResources.this.pending.incrementAndGet();
+
+            return acquisition.get()
+                .addListener(future -> {
+                    InstrumentedPoolResources.this.pending.decrementAndGet();
+
+                    if (future.isSuccess()) {
+                        InstrumentedPoolResources.this.acquired.incrementAndGet();
+                        InstrumentedPoolResources.this.acquisitions.incrementAndGet();
+                    } else {
+                        InstrumentedPoolResources.this.failures.incrementAndGet();
+                    }
+                });
+        }
+
+    }
+
+}
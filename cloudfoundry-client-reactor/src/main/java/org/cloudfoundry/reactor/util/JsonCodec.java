@@ -16,9 +16,12 @@
 
 package org.cloudfoundry.reactor.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.handler.codec.json.JsonObjectDecoder;
 import io.netty.util.AsciiString;
 import reactor.core.Exceptions;
@@ -28,9 +31,14 @@ import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public final class JsonCodec {
 
     private static final AsciiString APPLICATION_JSON = new AsciiString("application/json; charset=utf-8");
@@ -38,28 +46,74 @@ public final class JsonCodec {
     private static final AsciiString CONTENT_TYPE = new AsciiString("Content-Type");
 
     public static <T> Function<Mono<HttpClientResponse>, Flux<T>> decode(ObjectMapper objectMapper, Class<T> type) {
+        return decode(new JsonTypeRegistry(objectMapper), type);
+    }
+
+    public static <T> Function<Mono<HttpClientResponse>, Flux<T>> decode(JsonTypeRegistry jsonTypeRegistry, Class<T> type) {
+        ObjectReader reader = jsonTypeRegistry.getReader(type);
+
         return response -> response
             .flatMap(inbound -> inbound.addHandler(new JsonObjectDecoder()).receive().aggregate())
             .map(byteBuf -> {
-                String content = byteBuf.toString(Charset.defaultCharset());
+                int readerIndex = byteBuf.readerIndex();
 
-                try {
-                    return objectMapper.readValue(content, type);
+                try (InputStream in = new ByteBufInputStream(byteBuf)) {
+                    return reader.readValue(in);
                 } catch (IOException e) {
+                    String content = byteBuf.toString(readerIndex, byteBuf.writerIndex() - readerIndex, UTF_8);
                     throw Exceptions.propagate(new JsonParsingException(e.getMessage(), e, content));
                 }
             });
     }
 
-    static <T> Function<T, ByteBuf> encode(ObjectMapper objectMapper, HttpClientRequest request) {
+    /**
+     * Decodes the elements of an array-valued field of the response payload, emitting each element as it is read
+     *
+     * @param jsonTypeRegistry the {@link JsonTypeRegistry} to use
+     * @param fieldName        the name of the array-valued field
+     * @param type             the type of the elements
+     * @param envelopeConsumer a consumer of the other top-level fields of the payload, called once the whole payload has been read
+     * @param <T>              the type of the elements
+     * @return a function that transforms a response into a stream of elements
+     */
+    public static <T> Function<Mono<HttpClientResponse>, Flux<T>> decodeElements(JsonTypeRegistry jsonTypeRegistry, String fieldName, Class<T> type, Consumer<Map<String, Object>> envelopeConsumer) {
+        return response -> response
+            .flatMap(inbound -> inbound.addHandler(new JsonObjectDecoder()).receive().aggregate()
+                .flatMap(byteBuf -> Flux.generate(() -> new JsonElementReader<>(jsonTypeRegistry, byteBuf, fieldName, type),
+                    (reader, sink) -> {
+                        try {
+                            T element = reader.next();
+
+                            if (element != null) {
+                                sink.next(element);
+                            } else {
+                                envelopeConsumer.accept(reader.getEnvelope());
+                                sink.complete();
+                            }
+                        } catch (IOException e) {
+                            sink.error(new JsonParsingException(e.getMessage(), e, reader.getPayload()));
+                        }
+
+                        return reader;
+                    }, JsonElementReader::release)));
+    }
+
+    static Function<ObjectWriter, ByteBuf> encode(JsonTypeRegistry jsonTypeRegistry, Object source, HttpClientRequest request) {
         request.header(CONTENT_TYPE, APPLICATION_JSON);
 
-        return source -> {
-            try {
-                return request.alloc().directBuffer().writeBytes(objectMapper.writeValueAsBytes(source));
-            } catch (JsonProcessingException e) {
+        return writer -> {
+            Class<?> type = source.getClass();
+            ByteBuf byteBuf = request.alloc().directBuffer(jsonTypeRegistry.getSizeEstimate(type));
+
+            try (OutputStream out = new ByteBufOutputStream(byteBuf)) {
+                writer.writeValue(out, source);
+            } catch (IOException e) {
+                byteBuf.release();
                 throw Exceptions.propagate(e);
             }
+
+            jsonTypeRegistry.updateSizeEstimate(type, byteBuf.readableBytes());
+            return byteBuf;
         };
     }
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the elements of an array-valued field of a JSON object one at a time.  The other top-level fields of the object are collected as they are passed.  The reader retains the payload
+ * from its creation until it is released.
+ *
+ * @param <T> the type of element
+ */
+final class JsonElementReader<T> {
+
+    private final ByteBuf byteBuf;
+
+    private final Map<String, Object> envelope = new HashMap<>();
+
+    private final ObjectReader elementReader;
+
+    private final ObjectReader envelopeReader;
+
+    private final String fieldName;
+
+    private final int readerIndex;
+
+    private boolean inArray = false;
+
+    private JsonParser parser;
+
+    JsonElementReader(JsonTypeRegistry jsonTypeRegistry, ByteBuf byteBuf, String fieldName, Class<T> type) {
+        this.byteBuf = byteBuf;
+        this.elementReader = jsonTypeRegistry.getReader(type);
+        this.envelopeReader = jsonTypeRegistry.getReader(Object.class);
+        this.fieldName = fieldName;
+        this.readerIndex = byteBuf.readerIndex();
+        byteBuf.retain();
+    }
+
+    /**
+     * Returns the top-level fields, other than the array, read so far
+     */
+    Map<String, Object> getEnvelope() {
+        return this.envelope;
+    }
+
+    /**
+     * Returns the complete payload being read
+     */
+    String getPayload() {
+        return this.byteBuf.toString(this.readerIndex, this.byteBuf.writerIndex() - this.readerIndex, UTF_8);
+    }
+
+    /**
+     * Reads the next element of the array
+     *
+     * @return the next element or {@code null} if the whole object has been read
+     * @throws IOException if the payload cannot be parsed
+     */
+    T next() throws IOException {
+        if (this.parser == null) {
+            InputStream in = new ByteBufInputStream(this.byteBuf);
+            this.parser = this.elementReader.getFactory().createParser(in);
+
+            if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(this.parser, "Expected start of JSON object");
+            }
+        }
+
+        while (true) {
+            JsonToken token = this.parser.nextToken();
+
+            if (this.inArray) {
+                if (token == JsonToken.END_ARRAY) {
+                    this.inArray = false;
+                } else if (token != JsonToken.VALUE_NULL) {
+                    return this.elementReader.readValue(this.parser);
+                }
+
+                continue;
+            }
+
+            if (token == null || token == JsonToken.END_OBJECT) {
+                return null;
+            }
+
+            String name = this.parser.getCurrentName();
+            if (this.parser.nextToken() == JsonToken.START_ARRAY && this.fieldName.equals(name)) {
+                this.inArray = true;
+            } else {
+                this.envelope.put(name, this.envelopeReader.readValue(this.parser));
+            }
+        }
+    }
+
+    /**
+     * Closes the parser and releases the payload
+     */
+    void release() {
+        try {
+            if (this.parser != null) {
+                this.parser.close();
+            }
+        } catch (IOException e) {
+            // Closing an in-memory parser does not fail
+        } finally {
+            this.byteBuf.release();
+        }
+    }
+
+}
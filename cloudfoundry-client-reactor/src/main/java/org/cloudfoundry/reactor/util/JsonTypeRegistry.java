@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of prebuilt {@link ObjectReader}s and {@link ObjectWriter}s for each type read or written with an {@link ObjectMapper}.  Readers and writers resolve their root (de)serializer when they
+ * are built, so reusing them avoids a lookup, and a serializability check, on every request.
+ */
+public final class JsonTypeRegistry {
+
+    private static final int INITIAL_SIZE_ESTIMATE = 256;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.json");
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, Integer> sizeEstimates = new ConcurrentHashMap<>();
+
+    private final Set<Class<?>> warmed = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentMap<Class<?>, Optional<ObjectWriter>> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new registry
+     *
+     * @param objectMapper the {@link ObjectMapper} to build readers and writers from
+     */
+    public JsonTypeRegistry(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the {@link ObjectMapper} the readers and writers are built from
+     */
+    public ObjectMapper getObjectMapper() {
+        return this.objectMapper;
+    }
+
+    /**
+     * Returns the reader for a type
+     *
+     * @param type the type to read
+     * @return the reader for the type
+     */
+    public ObjectReader getReader(Class<?> type) {
+        return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+    }
+
+    /**
+     * Returns the estimated serialized size of a type
+     *
+     * @param type the type written
+     * @return the estimated size in bytes
+     */
+    public int getSizeEstimate(Class<?> type) {
+        return this.sizeEstimates.getOrDefault(type, INITIAL_SIZE_ESTIMATE);
+    }
+
+    /**
+     * Returns the writer for a type
+     *
+     * @param type the type to write
+     * @return the writer for the type, or empty if the type cannot be serialized
+     */
+    public Optional<ObjectWriter> getWriter(Class<?> type) {
+        return this.writers.computeIfAbsent(type, t -> this.objectMapper.canSerialize(t) ? Optional.of(this.objectMapper.writerFor(t)) : Optional.empty());
+    }
+
+    /**
+     * Updates the estimated serialized size of a type with the size of a value that has been written.  The estimate rises immediately to a larger size and decays gradually towards smaller ones,
+     * so that buffers sized from it rarely need to grow.
+     *
+     * @param type the type written
+     * @param size the size in bytes of the value written
+     */
+    public void updateSizeEstimate(Class<?> type, int size) {
+        this.sizeEstimates.merge(type, size, (estimate, latest) -> latest >= estimate ? latest : estimate - (estimate - latest) / 4);
+    }
+
+    /**
+     * Builds the readers for the response types, and the writers for the request types, of every operations interface of a client.  An operation's request type is the type of its single parameter
+     * and its response type is the type argument of its {@code Mono} or {@code Flux} return type.  A client is only warmed once.
+     *
+     * @param client the client interface
+     */
+    public void warm(Class<?> client) {
+        if (!this.warmed.add(client)) {
+            return;
+        }
+
+        Arrays.stream(client.getMethods())
+            .map(Method::getReturnType)
+            .filter(Class::isInterface)
+            .distinct()
+            .forEach(this::warmOperations);
+    }
+
+    private void warmOperations(Class<?> operations) {
+        for (Method method : operations.getMethods()) {
+            try {
+                if (method.getParameterCount() == 1) {
+                    getWriter(method.getParameterTypes()[0]);
+                }
+
+                Type returnType = method.getGenericReturnType();
+                if (returnType instanceof ParameterizedType) {
+                    Type responseType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+
+                    if (responseType instanceof Class && responseType != Void.class) {
+                        getReader((Class<?>) responseType);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to prepare JSON types of {}", method, e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.channel.EventLoopGroup;
+import reactor.ipc.netty.resources.LoopResources;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link LoopResources} that only creates its event loops when a connection first needs them, so that loops that are never used open neither threads nor selectors
+ */
+public final class LazyLoopResources implements LoopResources {
+
+    private final Supplier<LoopResources> factory;
+
+    private LoopResources delegate;
+
+    private boolean disposed = false;
+
+    /**
+     * Creates a new instance
+     *
+     * @param factory the factory of the event loops, called at most once
+     */
+    public LazyLoopResources(Supplier<LoopResources> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void dispose() {
+        LoopResources delegate;
+
+        synchronized (this) {
+            this.disposed = true;
+            delegate = this.delegate;
+        }
+
+        if (delegate != null) {
+            delegate.dispose();
+        }
+    }
+
+    /**
+     * Returns whether the event loops have been created
+     *
+     * @return {@code true} if the event loops have been created
+     */
+    public synchronized boolean isCreated() {
+        return this.delegate != null;
+    }
+
+    @Override
+    public EventLoopGroup onClient(boolean useNative) {
+        return getDelegate().onClient(useNative);
+    }
+
+    @Override
+    public EventLoopGroup onServer(boolean useNative) {
+        return getDelegate().onServer(useNative);
+    }
+
+    @Override
+    public EventLoopGroup onServerSelect(boolean useNative) {
+        return getDelegate().onServerSelect(useNative);
+    }
+
+    private synchronized LoopResources getDelegate() {
+        if (this.disposed) {
+            throw new IllegalStateException("Event loops have been disposed");
+        }
+
+        if (this.delegate == null) {
+            this.delegate = this.factory.get();
+        }
+
+        return this.delegate;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+/**
+ * Utilities for reducing request URIs to path templates, so that state kept for each endpoint is shared by every resource of that endpoint
+ */
+public final class PathTemplates {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private PathTemplates() {
+    }
+
+    /**
+     * Returns the path template of a URI: its raw path with each GUID replaced by {@code {id}}, for example {@code /v2/apps/{id}/routes}
+     *
+     * @param uri the URI
+     * @return the path template of the URI
+     */
+    public static String getPathTemplate(String uri) {
+        return getPathTemplate(URI.create(uri));
+    }
+
+    /**
+     * Returns the path template of a URI: its raw path with each GUID replaced by {@code {id}}, for example {@code /v2/apps/{id}/routes}
+     *
+     * @param uri the URI
+     * @return the path template of the URI
+     */
+    public static String getPathTemplate(URI uri) {
+        return IDENTIFIER.matcher(uri.getRawPath()).replaceAll("{id}");
+    }
+
+}
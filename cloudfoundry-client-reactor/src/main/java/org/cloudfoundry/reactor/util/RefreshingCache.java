@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * A cache of a single value that is refreshed once it is older than a time-to-live.  The first subscriber waits for the value to be loaded.  Once a value has been loaded, subscribers always receive
+ * it immediately, and a stale value triggers a refresh in the background.  Concurrent loads are shared, and a failed refresh keeps the stale value for another time-to-live.
+ *
+ * @param <T> the type of the cached value
+ */
+public final class RefreshingCache<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.cache");
+
+    private final Mono<T> source;
+
+    private final long ttl;
+
+    private volatile Entry<T> entry;
+
+    private Mono<T> loading;
+
+    /**
+     * Creates a new instance
+     *
+     * @param source the source of the value, subscribed to each time the value is loaded
+     * @param ttl    the time-to-live of a loaded value
+     */
+    public RefreshingCache(Mono<T> source, Duration ttl) {
+        this.source = source;
+        this.ttl = ttl.toMillis();
+    }
+
+    /**
+     * Returns the cached value, loading it if no value has been loaded yet
+     *
+     * @return the cached value
+     */
+    public Mono<T> get() {
+        return Mono.defer(() -> {
+            Entry<T> entry = this.entry;
+
+            if (entry == null) {
+                return load();
+            }
+
+            if (entry.expires <= System.currentTimeMillis()) {
+                load().subscribe(value -> {
+                }, t -> {
+                    LOGGER.warn("Unable to refresh cached value, keeping stale value", t);
+                    this.entry = new Entry<>(entry.value, System.currentTimeMillis() + this.ttl);
+                });
+            }
+
+            return Mono.just(entry.value);
+        });
+    }
+
+    private synchronized Mono<T> load() {
+        if (this.loading == null) {
+            this.loading = this.source
+                .doOnNext(value -> this.entry = new Entry<>(value, System.currentTimeMillis() + this.ttl))
+                .doFinally(signal -> loaded())
+                .cache();
+        }
+
+        return this.loading;
+    }
+
+    private synchronized void loaded() {
+        this.loading = null;
+    }
+
+    private static final class Entry<T> {
+
+        private final long expires;
+
+        private final T value;
+
+        private Entry(T value, long expires) {
+            this.expires = expires;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -16,6 +16,9 @@
 
 package org.cloudfoundry.reactor.util;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 import javax.net.ssl.X509TrustManager;
 import java.time.Duration;
 
@@ -33,4 +36,17 @@ public interface SslCertificateTruster extends X509TrustManager {
      */
     void trust(String host, int port, Duration duration);
 
+    /**
+     * Trust the certificate provided by a connection without blocking the subscribing thread.  By default, {@link #trust(String, int, Duration)} is called on the elastic scheduler.
+     *
+     * @param host     the host
+     * @param port     the port
+     * @param duration the duration to wait
+     * @return a {@link Mono} that completes when the certificate is trusted
+     */
+    default Mono<Void> trustAsync(String host, int port, Duration duration) {
+        return Mono.fromRunnable(() -> trust(host, port, duration))
+            .subscribeOn(Schedulers.elastic());
+    }
+
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.springframework.web.util.UriComponents;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders {@link UriComponents} as encoded URI strings.  Request URIs are almost always made up of characters that never need encoding, such as GUIDs, names, numbers and filters, so when no component
+ * contains a character that {@link UriComponents#encode()} would encode, the components are rendered as they are, rather than being copied and encoded one component at a time.
+ */
+final class UriEncoder {
+
+    private static final boolean[] HOST = allowed("");
+
+    private static final boolean[] PATH = allowed("!$&'()*+,/:;=@");
+
+    private static final boolean[] PATH_SEGMENT = allowed("!$&'()*+,:;=@");
+
+    private static final boolean[] QUERY_PARAM = allowed("!$'()*,/:;?@");
+
+    private UriEncoder() {
+    }
+
+    /**
+     * Renders components as an encoded URI string.  The result is identical to {@code components.encode().toUriString()}.
+     *
+     * @param components the unencoded components
+     * @return the encoded URI string
+     */
+    static String toUriString(UriComponents components) {
+        if (isSafe(components)) {
+            return components.toUriString();
+        }
+
+        return components.encode().toUriString();
+    }
+
+    private static boolean[] allowed(String characters) {
+        boolean[] allowed = new boolean[128];
+
+        for (char c = 'a'; c <= 'z'; c++) {
+            allowed[c] = true;
+            allowed[Character.toUpperCase(c)] = true;
+        }
+
+        for (char c = '0'; c <= '9'; c++) {
+            allowed[c] = true;
+        }
+
+        for (char c : ("-._~" + characters).toCharArray()) {
+            allowed[c] = true;
+        }
+
+        return allowed;
+    }
+
+    private static boolean isSafe(UriComponents components) {
+        if (components.getUserInfo() != null || components.getFragment() != null || !isSafe(components.getHost(), HOST) || !isSafe(components.getPath(), PATH)) {
+            return false;
+        }
+
+        for (String segment : components.getPathSegments()) {
+            if (!isSafe(segment, PATH_SEGMENT)) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : components.getQueryParams().entrySet()) {
+            if (!isSafe(entry.getKey(), QUERY_PARAM)) {
+                return false;
+            }
+
+            for (String value : entry.getValue()) {
+                if (!isSafe(value, QUERY_PARAM)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isSafe(String s, boolean[] allowed) {
+        if (s == null) {
+            return true;
+        }
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (c >= allowed.length || !allowed[c]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class AdaptiveConcurrencyLimiterTest {
+
+    private static final String URI = "https://api.run.pivotal.io/v2/apps/test-application-id/routes";
+
+    private final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+        .initialLimit(1)
+        .build();
+
+    @Test
+    public void backoff() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.builder()
+            .initialLimit(10)
+            .build();
+
+        limiter.limit(URI, Mono.just(response(TOO_MANY_REQUESTS)))
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(limiter.getLimit("api.run.pivotal.io/v2/apps")).isEqualTo(9);
+    }
+
+    @Test
+    public void endpointGroups() {
+        this.limiter.limit(URI, Mono.just(response(OK))).block();
+        this.limiter.limit("https://uaa.run.pivotal.io/oauth/token", Mono.just(response(OK))).block();
+
+        assertThat(this.limiter.getEndpointGroups()).containsOnly("api.run.pivotal.io/v2/apps", "uaa.run.pivotal.io/oauth/token");
+    }
+
+    @Test
+    public void endpointGroupsBounded() {
+        for (int i = 0; i < 1_100; i++) {
+            this.limiter.limit(String.format("https://api.run.pivotal.io/test-%d/test-path", i), Mono.just(response(OK))).block();
+        }
+
+        assertThat(this.limiter.getEndpointGroups().size()).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    public void endpointGroupsTemplated() {
+        this.limiter.limit("https://uaa.run.pivotal.io/Users/1e1b3a4c-1d7f-4c8e-9b3a-2f1c0e9d8a7b", Mono.just(response(OK))).block();
+        this.limiter.limit("https://uaa.run.pivotal.io/Users/9d2c6b1e-7a3f-4e5d-8c2b-1a0f9e8d7c6b", Mono.just(response(OK))).block();
+
+        assertThat(this.limiter.getEndpointGroups()).containsOnly("uaa.run.pivotal.io/Users/{id}");
+    }
+
+    @Test
+    public void increase() {
+        this.limiter.limit(URI, Mono.just(response(OK))).block();
+
+        assertThat(this.limiter.getLimit("api.run.pivotal.io/v2/apps")).isEqualTo(2);
+    }
+
+    @Test
+    public void queue() {
+        MonoProcessor<HttpClientResponse> first = MonoProcessor.create();
+        AtomicBoolean secondSubscribed = new AtomicBoolean();
+
+        MonoProcessor<HttpClientResponse> firstResult = this.limiter.limit(URI, first).subscribe();
+        MonoProcessor<HttpClientResponse> secondResult = this.limiter.limit(URI, Mono.fromCallable(() -> {
+            secondSubscribed.set(true);
+            return response(OK);
+        })).subscribe();
+
+        assertThat(secondSubscribed.get()).isFalse();
+        assertThat(this.limiter.getQueueDepth("api.run.pivotal.io/v2/apps")).isEqualTo(1);
+
+        first.onNext(response(OK));
+
+        assertThat(firstResult.isSuccess()).isTrue();
+        assertThat(secondResult.isSuccess()).isTrue();
+        assertThat(secondSubscribed.get()).isTrue();
+        assertThat(this.limiter.getQueueDepth("api.run.pivotal.io/v2/apps")).isEqualTo(0);
+    }
+
+    @Test
+    public void queueCancel() {
+        MonoProcessor<HttpClientResponse> first = MonoProcessor.create();
+
+        this.limiter.limit(URI, first).subscribe();
+        this.limiter.limit(URI, Mono.just(response(OK))).subscribe().cancel();
+
+        assertThat(this.limiter.getQueueDepth("api.run.pivotal.io/v2/apps")).isEqualTo(0);
+    }
+
+    private static HttpClientResponse response(HttpResponseStatus status) {
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.status()).thenReturn(status);
+        return response;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class AdaptivePaginationPolicyTest {
+
+    private final PaginationPolicy policy = AdaptivePaginationPolicy.builder()
+        .latencyBudget(Duration.ofSeconds(1))
+        .minimumPageSize(10)
+        .build();
+
+    @Test
+    public void grow() {
+        this.policy.onPage("/v2/apps", 20, 20, Duration.ofMillis(100));
+
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(40);
+    }
+
+    @Test
+    public void empty() {
+        this.policy.onPage("/v2/apps", 100, 0, Duration.ofSeconds(2));
+
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(100);
+    }
+
+    @Test
+    public void initial() {
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(100);
+    }
+
+    @Test
+    public void partial() {
+        this.policy.onPage("/v2/apps", 100, 25, Duration.ofMillis(500));
+
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(50);
+    }
+
+    @Test
+    public void shrinkLatency() {
+        this.policy.onPage("/v2/apps", 100, 100, Duration.ofSeconds(2));
+
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(50);
+    }
+
+    @Test
+    public void shrinkMinimum() {
+        this.policy.onPage("/v2/apps", 100, 100, Duration.ofSeconds(100));
+
+        assertThat(this.policy.getPageSize("/v2/apps", 100)).isEqualTo(10);
+    }
+
+}
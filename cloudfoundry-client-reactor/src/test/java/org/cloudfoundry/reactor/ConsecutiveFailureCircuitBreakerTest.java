@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_GATEWAY;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class ConsecutiveFailureCircuitBreakerTest {
+
+    private static final String ROOT = "https://uaa.run.pivotal.io";
+
+    private final ConsecutiveFailureCircuitBreaker circuitBreaker = ConsecutiveFailureCircuitBreaker.builder()
+        .failureThreshold(2)
+        .openDuration(Duration.ofMillis(100))
+        .build();
+
+    @Test
+    public void bounded() {
+        ConsecutiveFailureCircuitBreaker circuitBreaker = ConsecutiveFailureCircuitBreaker.builder()
+            .failureThreshold(1)
+            .build();
+
+        circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.just(response(BAD_GATEWAY))).block();
+        for (int i = 0; i < 1_000; i++) {
+            String root = String.format("https://test-host-%d.example.com", i);
+            circuitBreaker.protect(root, root + "/Users", Mono.just(response(OK))).block();
+        }
+
+        assertThat(circuitBreaker.getCircuits()).hasSize(2).contains(ROOT, "https://test-host-999.example.com");
+        assertThat(circuitBreaker.isOpen(ROOT)).isTrue();
+    }
+
+    @Test
+    public void clientErrors() {
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.just(response(NOT_FOUND))).block();
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.just(response(NOT_FOUND))).block();
+
+        assertThat(this.circuitBreaker.isOpen(ROOT)).isFalse();
+    }
+
+    @Test
+    public void halfOpen() throws InterruptedException {
+        trip();
+        Thread.sleep(150);
+
+        AtomicBoolean probed = new AtomicBoolean();
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.fromCallable(() -> {
+            probed.set(true);
+            return response(OK);
+        })).block();
+
+        assertThat(probed.get()).isTrue();
+        assertThat(this.circuitBreaker.isOpen(ROOT)).isFalse();
+    }
+
+    @Test
+    public void halfOpenFailure() throws InterruptedException {
+        trip();
+        Thread.sleep(150);
+
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.error(new IOException()))
+            .as(StepVerifier::create)
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.circuitBreaker.isOpen(ROOT)).isTrue();
+    }
+
+    @Test
+    public void open() {
+        trip();
+
+        AtomicBoolean subscribed = new AtomicBoolean();
+        this.circuitBreaker.protect(ROOT, ROOT + "/Groups", Mono.fromCallable(() -> {
+            subscribed.set(true);
+            return response(OK);
+        }))
+            .as(StepVerifier::create)
+            .expectError(CircuitOpenException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(subscribed.get()).isFalse();
+        assertThat(this.circuitBreaker.isOpen(ROOT)).isTrue();
+    }
+
+    @Test
+    public void openInFlightFailure() throws InterruptedException {
+        ConsecutiveFailureCircuitBreaker circuitBreaker = ConsecutiveFailureCircuitBreaker.builder()
+            .failureThreshold(1)
+            .openDuration(Duration.ofMillis(200))
+            .build();
+
+        MonoProcessor<HttpClientResponse> inFlight = MonoProcessor.create();
+        circuitBreaker.protect(ROOT, ROOT + "/Users", inFlight).subscribe(response -> {
+        }, error -> {
+        });
+
+        circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.just(response(BAD_GATEWAY))).block();
+        Thread.sleep(100);
+        inFlight.onError(new IOException());
+        Thread.sleep(150);
+
+        assertThat(circuitBreaker.isOpen(ROOT)).isFalse();
+    }
+
+    @Test
+    public void pathTemplates() {
+        ConsecutiveFailureCircuitBreaker circuitBreaker = ConsecutiveFailureCircuitBreaker.builder()
+            .failureThreshold(1)
+            .pathTemplates(true)
+            .build();
+
+        circuitBreaker.protect(ROOT, ROOT + "/Users/a8c4b2d0-9e4f-4a4b-8c1d-2f3e4a5b6c7d", Mono.just(response(BAD_GATEWAY))).block();
+        circuitBreaker.protect(ROOT, ROOT + "/Groups", Mono.just(response(OK))).block();
+
+        assertThat(circuitBreaker.getCircuits()).containsOnly(ROOT + " /Users/{id}", ROOT + " /Groups");
+        assertThat(circuitBreaker.isOpen(ROOT + " /Users/{id}")).isTrue();
+        assertThat(circuitBreaker.isOpen(ROOT + " /Groups")).isFalse();
+    }
+
+    private static HttpClientResponse response(HttpResponseStatus status) {
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.status()).thenReturn(status);
+        return response;
+    }
+
+    private void trip() {
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.just(response(BAD_GATEWAY))).block();
+        this.circuitBreaker.protect(ROOT, ROOT + "/Users", Mono.error(new IOException()))
+            .as(StepVerifier::create)
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+
+}
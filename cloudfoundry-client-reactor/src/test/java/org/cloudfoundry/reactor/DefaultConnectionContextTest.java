@@ -16,14 +16,30 @@
 
 package org.cloudfoundry.reactor;
 
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.OpenSsl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.ipc.netty.options.ClientOptions;
+import reactor.ipc.netty.resources.LoopResources;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpMethod.GET;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public final class DefaultConnectionContextTest extends AbstractRestTest {
 
@@ -53,4 +69,168 @@ public final class DefaultConnectionContextTest extends AbstractRestTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void getRootNotEndpoint() throws Exception {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/info")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/info/GET_response.json")
+                .build())
+            .build());
+
+        this.connectionContext
+            .getRoot("name")
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(IllegalArgumentException.class).hasMessage("No root found for key name"))
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void nativeTransport() {
+        assertThat(preferNative(DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .nativeTransport(true)
+            .build()))
+            .isEqualTo(OpenSsl.isAvailable());
+    }
+
+    @Test
+    public void nativeTransportDefault() {
+        assertThat(preferNative(DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .secure(false)
+            .build()))
+            .isTrue();
+    }
+
+    @Test
+    public void nativeTransportDefaultSecure() {
+        assertThat(preferNative(DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .build()))
+            .isFalse();
+    }
+
+    @Test
+    public void nativeTransportDisabled() {
+        assertThat(preferNative(DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .nativeTransport(false)
+            .secure(false)
+            .build()))
+            .isFalse();
+    }
+
+    @Test
+    public void prewarmedConnections() throws Exception {
+        MockWebServer streaming = new MockWebServer();
+
+        try {
+            DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+                .apiHost(this.mockWebServer.getHostName())
+                .port(this.mockWebServer.getPort())
+                .prewarmedConnections(2)
+                .secure(false)
+                .build();
+
+            this.mockWebServer.enqueue(new MockResponse()
+                .setHeader(CONTENT_TYPE.toString(), "application/json")
+                .setBody(String.format("{\"authorization_endpoint\":\"http://%s:%d/uaa\",\"doppler_logging_endpoint\":\"ws://%s:%d\"}",
+                    this.mockWebServer.getHostName(), this.mockWebServer.getPort(), streaming.getHostName(), streaming.getPort())));
+            this.mockWebServer.enqueue(new MockResponse());
+            this.mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+            connectionContext.getRoot("authorization_endpoint").block(Duration.ofSeconds(5));
+
+            assertThat(this.mockWebServer.takeRequest(5, SECONDS).getPath()).isEqualTo("/v2/info");
+            assertThat(this.mockWebServer.takeRequest(5, SECONDS).getPath()).isEqualTo("/");
+            assertThat(this.mockWebServer.takeRequest(5, SECONDS).getPath()).isEqualTo("/");
+            assertThat(streaming.takeRequest(1, SECONDS)).isNull();
+
+            connectionContext.dispose();
+        } finally {
+            streaming.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedResources() {
+        ConnectionResources connectionResources = ConnectionResources.builder()
+            .build();
+
+        DefaultConnectionContext first = DefaultConnectionContext.builder()
+            .apiHost("api.first.example.com")
+            .connectionResources(connectionResources)
+            .build();
+
+        DefaultConnectionContext second = DefaultConnectionContext.builder()
+            .apiHost("api.second.example.com")
+            .connectionResources(connectionResources)
+            .build();
+
+        assertThat(first.getConnectionPool()).isSameAs(second.getConnectionPool());
+        assertThat(first.getStreamingConnectionPool()).isSameAs(second.getStreamingConnectionPool());
+
+        connectionResources.dispose();
+    }
+
+    @Test
+    public void sharedResourcesSkipSslValidation() {
+        ConnectionResources connectionResources = ConnectionResources.builder()
+            .build();
+
+        DefaultConnectionContext strict = DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .connectionResources(connectionResources)
+            .build();
+
+        DefaultConnectionContext lenient = DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .connectionResources(connectionResources)
+            .skipSslValidation(true)
+            .build();
+
+        assertThat(strict.getConnectionPool()).isNotSameAs(lenient.getConnectionPool());
+        assertThat(strict.getStreamingConnectionPool()).isNotSameAs(lenient.getStreamingConnectionPool());
+        assertThat(strict.getResources().getStreamingLoopResources()).isSameAs(lenient.getResources().getStreamingLoopResources());
+
+        connectionResources.dispose();
+    }
+
+    @Test
+    public void streamingLoopsLazy() {
+        DefaultConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("api.example.com")
+            .build();
+
+        DefaultConnectionContext copy = DefaultConnectionContext.builder()
+            .from(connectionContext)
+            .streamingConnectionPoolSize(2)
+            .build();
+
+        assertThat(copy.getStreamingHttpClient()).isNotNull();
+        assertThat(connectionContext.getResources().getStreamingLoopResources().isCreated()).isFalse();
+        assertThat(copy.getResources().getStreamingLoopResources().isCreated()).isFalse();
+
+        connectionContext.dispose();
+        copy.dispose();
+    }
+
+    private static boolean preferNative(DefaultConnectionContext connectionContext) {
+        LoopResources loopResources = mock(LoopResources.class, RETURNS_SMART_NULLS);
+        when(loopResources.onChannel(any())).thenAnswer(invocation -> NioSocketChannel.class);
+
+        connectionContext.configure(ClientOptions.create())
+            .loopResources(loopResources)
+            .get();
+
+        ArgumentCaptor<Boolean> preferNative = ArgumentCaptor.forClass(Boolean.class);
+        Mockito.verify(loopResources).onClient(preferNative.capture());
+
+        return preferNative.getValue();
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class HistogramRequestObserverTest {
+
+    private final HistogramRequestObserver observer = HistogramRequestObserver.builder()
+        .build();
+
+    @Test
+    public void complete() {
+        for (int i = 1; i <= 100; i++) {
+            this.observer.onComplete(exchange("GET", 200, Duration.ofMillis(i), 0));
+        }
+
+        EndpointStatistics statistics = this.observer.getStatistics().get("GET /v2/apps/{id}");
+
+        assertThat(statistics.getCount()).isEqualTo(100);
+        assertThat(statistics.getBytesIn()).isEqualTo(100 * 1_000);
+        assertThat(statistics.getBytesOut()).isEqualTo(100 * 10);
+        assertThat(statistics.getErrors()).isEqualTo(0);
+        assertThat(statistics.getStatuses()).containsEntry(200, 100L);
+        assertThat(statistics.getLatencies().get(50.0).toMillis()).isCloseTo(50L, within(1L));
+        assertThat(statistics.getLatencies().get(99.0).toMillis()).isCloseTo(99L, within(1L));
+        assertThat(statistics.getMaximumLatency()).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    public void error() {
+        this.observer.onError(exchange("POST", -1, Duration.ofSeconds(1), 1), new IOException("test-message"));
+
+        EndpointStatistics statistics = this.observer.getStatistics().get("POST /v2/apps/{id}");
+
+        assertThat(statistics.getCount()).isEqualTo(0);
+        assertThat(statistics.getErrors()).isEqualTo(1);
+        assertThat(statistics.getRetries()).isEqualTo(1);
+        assertThat(statistics.getStatuses()).isEmpty();
+    }
+
+    @Test
+    public void largeLatency() {
+        this.observer.onComplete(exchange("GET", 200, Duration.ofHours(1), 0));
+
+        Duration latency = this.observer.getStatistics().get("GET /v2/apps/{id}").getLatencies().get(50.0);
+        assertThat(latency.toMillis()).isCloseTo(Duration.ofHours(1).toMillis(), within(Duration.ofHours(1).toMillis() / 100));
+    }
+
+    private static ObservedExchange exchange(String method, int status, Duration elapsed, int retries) {
+        ObservedExchange exchange = mock(ObservedExchange.class, RETURNS_SMART_NULLS);
+        when(exchange.getBytesIn()).thenReturn(1_000L);
+        when(exchange.getBytesOut()).thenReturn(10L);
+        when(exchange.getElapsed()).thenReturn(elapsed);
+        when(exchange.getMethod()).thenReturn(method);
+        when(exchange.getPath()).thenReturn("/v2/apps/{id}");
+        when(exchange.getRetries()).thenReturn(retries);
+        when(exchange.getStatus()).thenReturn(status < 0 ? Optional.empty() : Optional.of(status));
+        return exchange;
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.ByteBufFlux;
+import reactor.ipc.netty.channel.AbortedException;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_GATEWAY;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class JitteredRetryPolicyTest {
+
+    private static final String URI = "https://api.run.pivotal.io/v2/apps";
+
+    private final List<Integer> attempts = new CopyOnWriteArrayList<>();
+
+    private final JitteredRetryPolicy retryPolicy = JitteredRetryPolicy.builder()
+        .initialBackoff(Duration.ZERO)
+        .maximumBackoff(Duration.ZERO)
+        .build();
+
+    @Test
+    public void budgetExhausted() {
+        JitteredRetryPolicy retryPolicy = JitteredRetryPolicy.builder()
+            .budgetCapacity(1.0)
+            .budgetRatio(0.0)
+            .initialBackoff(Duration.ZERO)
+            .maximumBackoff(Duration.ZERO)
+            .build();
+
+        retryPolicy.retry(URI, exchange(Mono.error(new IOException()), Mono.just(response(OK)))).block();
+
+        retryPolicy.retry(URI, exchange(Mono.error(new IOException()), Mono.just(response(OK))))
+            .as(StepVerifier::create)
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(retryPolicy.getRetries()).isEqualTo(1);
+        assertThat(retryPolicy.getBudget()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void clientError() {
+        this.retryPolicy.retry(URI, exchange(Mono.just(response(NOT_FOUND)), Mono.just(response(OK))))
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.status()).isEqualTo(NOT_FOUND))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0);
+    }
+
+    @Test
+    public void empty() {
+        this.retryPolicy.retry(URI, exchange(Mono.empty(), Mono.just(response(OK))))
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.status()).isEqualTo(OK))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0, 1);
+        assertThat(this.retryPolicy.getRetries()).isEqualTo(1);
+    }
+
+    @Test
+    public void emptyMaximumRetries() {
+        this.retryPolicy.retry(URI, exchange(Mono.empty()))
+            .as(StepVerifier::create)
+            .expectError(AbortedException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0, 1, 2, 3);
+        assertThat(this.retryPolicy.getRetries()).isEqualTo(3);
+    }
+
+    @Test
+    public void ioError() {
+        this.retryPolicy.retry(URI, exchange(Mono.error(new IOException()), Mono.just(response(OK))))
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.status()).isEqualTo(OK))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0, 1);
+        assertThat(this.retryPolicy.getRetries()).isEqualTo(1);
+    }
+
+    @Test
+    public void maximumRetries() {
+        this.retryPolicy.retry(URI, exchange(Mono.error(new IOException())))
+            .as(StepVerifier::create)
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    public void serverError() {
+        this.retryPolicy.retry(URI, exchange(Mono.just(response(BAD_GATEWAY)), Mono.just(response(OK))))
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.status()).isEqualTo(OK))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.attempts).containsExactly(0, 1);
+    }
+
+    @SafeVarargs
+    private final Function<Integer, Mono<HttpClientResponse>> exchange(Mono<HttpClientResponse>... results) {
+        return retries -> {
+            this.attempts.add(retries);
+            return results[Math.min(retries, results.length - 1)];
+        };
+    }
+
+    private static HttpClientResponse response(HttpResponseStatus status) {
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.receive()).thenReturn(ByteBufFlux.fromInbound(Flux.empty()));
+        when(response.status()).thenReturn(status);
+        return response;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class LruResponseCacheTest {
+
+    private final LruResponseCache cache = LruResponseCache.builder()
+        .immutableEndpoint("/v2/stacks")
+        .maximumSize(2)
+        .build();
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        this.cache.put("https://api.run.pivotal.io/v2/apps/test-id-1", "test-principal", revalidatable("test-body-1"));
+        this.cache.put("https://api.run.pivotal.io/v2/apps/test-id-2", "test-principal", revalidatable("test-body-2"));
+        this.cache.get("https://api.run.pivotal.io/v2/apps/test-id-1", "test-principal");
+        this.cache.put("https://api.run.pivotal.io/v2/apps/test-id-3", "test-principal", revalidatable("test-body-3"));
+
+        assertThat(this.cache.getSize()).isEqualTo(2);
+        assertThat(this.cache.get("https://api.run.pivotal.io/v2/apps/test-id-1", "test-principal")).isPresent();
+        assertThat(this.cache.get("https://api.run.pivotal.io/v2/apps/test-id-2", "test-principal")).isEmpty();
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        LruResponseCache cache = LruResponseCache.builder()
+            .timeToLive(Duration.ofMillis(1))
+            .build();
+
+        cache.put("https://api.run.pivotal.io/v2/apps/test-id", "test-principal", revalidatable("test-body"));
+        Thread.sleep(10);
+
+        assertThat(cache.get("https://api.run.pivotal.io/v2/apps/test-id", "test-principal")).isEmpty();
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void immutable() {
+        this.cache.put("https://api.run.pivotal.io/v2/stacks?page=1", "test-principal", CachedResponse.builder()
+            .body("test-body")
+            .build());
+
+        assertThat(this.cache.get("https://api.run.pivotal.io/v2/stacks?page=1", "test-principal")).hasValueSatisfying(response -> assertThat(response.getBody()).isEqualTo("test-body"));
+    }
+
+    @Test
+    public void notRevalidatable() {
+        this.cache.put("https://api.run.pivotal.io/v2/stacks_other", "test-principal", CachedResponse.builder()
+            .body("test-body")
+            .build());
+
+        assertThat(this.cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void principal() {
+        this.cache.put("https://api.run.pivotal.io/v2/apps/test-id", "test-principal-1", revalidatable("test-body"));
+
+        assertThat(this.cache.get("https://api.run.pivotal.io/v2/apps/test-id", "test-principal-1")).isPresent();
+        assertThat(this.cache.get("https://api.run.pivotal.io/v2/apps/test-id", "test-principal-2")).isEmpty();
+    }
+
+    private static CachedResponse revalidatable(String body) {
+        return CachedResponse.builder()
+            .body(body)
+            .entityTag("\"test-entity-tag\"")
+            .build();
+    }
+
+}
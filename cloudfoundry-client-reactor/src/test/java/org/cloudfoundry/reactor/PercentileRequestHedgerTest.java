@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.ACCEPTED;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class PercentileRequestHedgerTest {
+
+    private static final String URI = "https://api.run.pivotal.io/v2/apps/a8c4b2d0-9e4f-4a4b-8c1d-2f3e4a5b6c7d/stats";
+
+    private final PercentileRequestHedger hedger = PercentileRequestHedger.builder()
+        .minimumSamples(1)
+        .windowSize(10)
+        .build();
+
+    @Test
+    public void budgetExhausted() {
+        PercentileRequestHedger hedger = PercentileRequestHedger.builder()
+            .budgetCapacity(1.0)
+            .budgetRatio(0.0)
+            .minimumSamples(1)
+            .build();
+
+        hedger.hedge(URI, Mono.just(response(OK))).block();
+        hedger.hedge(URI, slowThenFast(new AtomicBoolean())).block(Duration.ofSeconds(5));
+
+        hedger.hedge(URI, slowThenFast(new AtomicBoolean()))
+            .as(StepVerifier::create)
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(200))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(hedger.getHedges()).isEqualTo(1);
+    }
+
+    @Test
+    public void endpointsBounded() {
+        PercentileRequestHedger hedger = PercentileRequestHedger.builder()
+            .minimumSamples(2)
+            .build();
+
+        hedger.hedge(URI, Mono.just(response(OK))).block();
+        hedger.hedge(URI, Mono.just(response(OK))).block();
+
+        for (int i = 0; i < 1_100; i++) {
+            hedger.hedge(String.format("https://api.run.pivotal.io/test-%d/test-path", i), Mono.just(response(OK))).block();
+        }
+
+        assertThat(hedger.getEndpoints().size()).isLessThanOrEqualTo(1_000);
+        assertThat(hedger.getThreshold("/v2/apps/{id}/stats")).isPresent();
+    }
+
+    @Test
+    public void hedge() {
+        this.hedger.hedge(URI, Mono.just(response(OK))).block();
+        assertThat(this.hedger.getThreshold("/v2/apps/{id}/stats")).hasValue(Duration.ofMillis(10));
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        this.hedger.hedge(URI, slowThenFast(cancelled))
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.status()).isEqualTo(ACCEPTED))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(cancelled.get()).isTrue();
+        assertThat(this.hedger.getHedges()).isEqualTo(1);
+    }
+
+    @Test
+    public void notHedgedWithoutSamples() {
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        this.hedger.hedge(URI, Mono.fromCallable(() -> {
+            subscriptions.incrementAndGet();
+            return response(OK);
+        })).block();
+
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(this.hedger.getHedges()).isEqualTo(0);
+    }
+
+    private static HttpClientResponse response(HttpResponseStatus status) {
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.status()).thenReturn(status);
+        return response;
+    }
+
+    private static Mono<HttpClientResponse> slowThenFast(AtomicBoolean cancelled) {
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        return Mono.defer(() -> subscriptions.getAndIncrement() == 0 ? Mono.<HttpClientResponse>never().doOnCancel(() -> cancelled.set(true)) : Mono.just(response(ACCEPTED)));
+    }
+
+}
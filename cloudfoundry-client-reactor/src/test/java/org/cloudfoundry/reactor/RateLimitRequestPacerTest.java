@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.Test;
+import reactor.core.Cancellation;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class RateLimitRequestPacerTest {
+
+    private static final String URI = "https://api.run.pivotal.io/v2/apps";
+
+    private final RateLimitRequestPacer pacer = RateLimitRequestPacer.builder()
+        .build();
+
+    private final TokenProvider tokenProvider = connectionContext -> Mono.just("test-token");
+
+    @Test
+    public void exhausted() {
+        this.pacer.pace(this.tokenProvider, URI, Mono.just(response(100, 0))).block();
+
+        AtomicBoolean subscribed = new AtomicBoolean();
+        Cancellation cancellation = this.pacer.pace(this.tokenProvider, URI, exchange(subscribed)).subscribe();
+
+        assertThat(subscribed.get()).isFalse();
+        assertThat(this.pacer.getQueueDepth(this.tokenProvider)).isEqualTo(1);
+
+        cancellation.dispose();
+        assertThat(this.pacer.getQueueDepth(this.tokenProvider)).isEqualTo(0);
+    }
+
+    @Test
+    public void interactiveReserve() {
+        RateLimitRequestPacer pacer = RateLimitRequestPacer.builder()
+            .pacingThreshold(0.05)
+            .build();
+
+        pacer.pace(this.tokenProvider, URI, Mono.just(response(100, 8))).block();
+
+        AtomicBoolean background = new AtomicBoolean();
+        Cancellation cancellation = pacer.pace(this.tokenProvider, URI + "?page=2", exchange(background)).subscribe();
+
+        AtomicBoolean interactive = new AtomicBoolean();
+        pacer.pace(this.tokenProvider, URI + "?page=1", exchange(interactive)).subscribe();
+
+        assertThat(background.get()).isFalse();
+        assertThat(interactive.get()).isTrue();
+
+        cancellation.dispose();
+    }
+
+    @Test
+    public void explicitPriority() {
+        RateLimitRequestPacer pacer = RateLimitRequestPacer.builder()
+            .pacingThreshold(0.05)
+            .build();
+
+        pacer.pace(this.tokenProvider, URI, Mono.just(response(100, 8))).block();
+
+        AtomicBoolean background = new AtomicBoolean();
+        Cancellation cancellation = pacer.pace(this.tokenProvider, URI + "?page=1", Optional.of(RequestPriority.BACKGROUND), exchange(background)).subscribe();
+
+        AtomicBoolean interactive = new AtomicBoolean();
+        pacer.pace(this.tokenProvider, URI + "?page=2", Optional.of(RequestPriority.INTERACTIVE), exchange(interactive)).subscribe();
+
+        assertThat(background.get()).isFalse();
+        assertThat(interactive.get()).isTrue();
+
+        cancellation.dispose();
+    }
+
+    @Test
+    public void plentiful() {
+        this.pacer.pace(this.tokenProvider, URI, Mono.just(response(100, 50))).block();
+
+        AtomicBoolean subscribed = new AtomicBoolean();
+        this.pacer.pace(this.tokenProvider, URI + "?page=2", exchange(subscribed)).block();
+
+        assertThat(subscribed.get()).isTrue();
+        assertThat(this.pacer.getRemaining(this.tokenProvider)).hasValue(49L);
+    }
+
+    @Test
+    public void unknown() {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        this.pacer.pace(this.tokenProvider, URI, exchange(subscribed)).block();
+
+        assertThat(subscribed.get()).isTrue();
+        assertThat(this.pacer.getRemaining(this.tokenProvider)).isEmpty();
+    }
+
+    private static Mono<HttpClientResponse> exchange(AtomicBoolean subscribed) {
+        return Mono.fromCallable(() -> {
+            subscribed.set(true);
+
+            HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+            when(response.responseHeaders()).thenReturn(new DefaultHttpHeaders());
+            when(response.status()).thenReturn(OK);
+            return response;
+        });
+    }
+
+    private static HttpClientResponse response(long limit, long remaining) {
+        HttpHeaders headers = new DefaultHttpHeaders()
+            .add("X-RateLimit-Limit", limit)
+            .add("X-RateLimit-Remaining", remaining)
+            .add("X-RateLimit-Reset", Instant.now().plusSeconds(60).getEpochSecond());
+
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.responseHeaders()).thenReturn(headers);
+        when(response.status()).thenReturn(OK);
+        return response;
+    }
+
+}
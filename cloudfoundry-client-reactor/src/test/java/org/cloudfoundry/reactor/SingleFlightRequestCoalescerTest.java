@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class SingleFlightRequestCoalescerTest {
+
+    private final SingleFlightRequestCoalescer coalescer = SingleFlightRequestCoalescer.builder()
+        .build();
+
+    @Test
+    public void cancel() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<String> request = MonoProcessor.<String>create()
+            .doOnCancel(() -> cancelled.set(true));
+
+        MonoProcessor<String> first = this.coalescer.coalesce("test-key", request).subscribe();
+        MonoProcessor<String> second = this.coalescer.coalesce("test-key", request).subscribe();
+
+        first.cancel();
+        assertThat(cancelled.get()).isFalse();
+
+        second.cancel();
+        assertThat(cancelled.get()).isTrue();
+        assertThat(this.coalescer.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void coalesce() {
+        MonoProcessor<String> response = MonoProcessor.create();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> request = response.doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+
+        MonoProcessor<String> first = this.coalescer.coalesce("test-key", request).subscribe();
+        MonoProcessor<String> second = this.coalescer.coalesce("test-key", request).subscribe();
+
+        assertThat(this.coalescer.getInFlight()).isEqualTo(1);
+
+        response.onNext("test-value");
+
+        assertThat(first.peek()).isEqualTo("test-value");
+        assertThat(second.peek()).isEqualTo("test-value");
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(this.coalescer.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void differentKeys() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> request = MonoProcessor.<String>create()
+            .doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+
+        this.coalescer.coalesce("test-key-1", request).subscribe();
+        this.coalescer.coalesce("test-key-2", request).subscribe();
+
+        assertThat(subscriptions.get()).isEqualTo(2);
+        assertThat(this.coalescer.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void sequential() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> request = Mono.fromCallable(() -> String.valueOf(subscriptions.incrementAndGet()));
+
+        assertThat(this.coalescer.coalesce("test-key", request).block()).isEqualTo("1");
+        assertThat(this.coalescer.coalesce("test-key", request).block()).isEqualTo("2");
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class TokenBucketTest {
+
+    private final TokenBucket tokenBucket = new TokenBucket(() -> 2.0, () -> 0.5);
+
+    @Test
+    public void deposit() {
+        this.tokenBucket.withdraw();
+        this.tokenBucket.withdraw();
+        this.tokenBucket.deposit();
+
+        assertThat(this.tokenBucket.getRemaining()).isEqualTo(0.5);
+        assertThat(this.tokenBucket.withdraw()).isFalse();
+
+        this.tokenBucket.deposit();
+
+        assertThat(this.tokenBucket.withdraw()).isTrue();
+    }
+
+    @Test
+    public void full() {
+        this.tokenBucket.deposit();
+
+        assertThat(this.tokenBucket.getRemaining()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void withdraw() {
+        assertThat(this.tokenBucket.withdraw()).isTrue();
+        assertThat(this.tokenBucket.withdraw()).isTrue();
+        assertThat(this.tokenBucket.withdraw()).isFalse();
+        assertThat(this.tokenBucket.getRemaining()).isEqualTo(0.0);
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.cloudfoundry.client.v2.applications.GetApplicationRequest;
+import org.cloudfoundry.client.v2.applications.GetApplicationResponse;
+import org.cloudfoundry.reactor.AbstractRestTest;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.LruResponseCache;
+import org.cloudfoundry.reactor.TokenProvider;
+import org.cloudfoundry.reactor.client.v2.applications.ReactorApplicationsV2;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class CachedGetTest extends AbstractRestTest {
+
+    private static final String LAST_MODIFIED_VALUE = "Wed, 01 Mar 2017 12:00:00 GMT";
+
+    private final AtomicReference<String> token = new AtomicReference<>(token("test-user", "cloud_controller.read"));
+
+    private final TokenProvider tokenProvider = connectionContext -> Mono.fromCallable(this.token::get);
+
+    @Test
+    public void immutable() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder()
+            .immutableEndpoint("/v2/apps")
+            .build());
+
+        this.mockWebServer.enqueue(response("test-name-1"));
+
+        GetApplicationResponse first = get(applications);
+        GetApplicationResponse second = get(applications);
+
+        assertThat(second).isSameAs(first);
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void modified() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder().build());
+
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\""));
+        this.mockWebServer.enqueue(response("test-name-2")
+            .setHeader(ETAG.toString(), "\"test-etag-2\""));
+        this.mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(304));
+
+        get(applications);
+        GetApplicationResponse second = get(applications);
+        GetApplicationResponse third = get(applications);
+
+        assertThat(second.getEntity().getName()).isEqualTo("test-name-2");
+        assertThat(third).isSameAs(second);
+
+        this.mockWebServer.takeRequest();
+        assertThat(this.mockWebServer.takeRequest().getHeader(IF_NONE_MATCH.toString())).isEqualTo("\"test-etag-1\"");
+        assertThat(this.mockWebServer.takeRequest().getHeader(IF_NONE_MATCH.toString())).isEqualTo("\"test-etag-2\"");
+    }
+
+    @Test
+    public void noStore() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder().build());
+
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\"")
+            .setHeader(CACHE_CONTROL.toString(), "no-store"));
+        this.mockWebServer.enqueue(response("test-name-2"));
+
+        get(applications);
+        get(applications);
+
+        this.mockWebServer.takeRequest();
+        assertThat(this.mockWebServer.takeRequest().getHeader(IF_NONE_MATCH.toString())).isNull();
+    }
+
+    @Test
+    public void notModified() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder().build());
+
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\"")
+            .setHeader(LAST_MODIFIED.toString(), LAST_MODIFIED_VALUE));
+        this.mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(304));
+
+        GetApplicationResponse first = get(applications);
+        GetApplicationResponse second = get(applications);
+
+        assertThat(second).isSameAs(first);
+
+        RecordedRequest unconditional = this.mockWebServer.takeRequest();
+        assertThat(unconditional.getHeader(IF_NONE_MATCH.toString())).isNull();
+        assertThat(unconditional.getHeader(IF_MODIFIED_SINCE.toString())).isNull();
+
+        RecordedRequest conditional = this.mockWebServer.takeRequest();
+        assertThat(conditional.getHeader(IF_NONE_MATCH.toString())).isEqualTo("\"test-etag-1\"");
+        assertThat(conditional.getHeader(IF_MODIFIED_SINCE.toString())).isEqualTo(LAST_MODIFIED_VALUE);
+    }
+
+    @Test
+    public void refreshedToken() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder().build());
+
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\""));
+        this.mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(304));
+
+        GetApplicationResponse first = get(applications);
+        this.token.set(token("test-user", "cloud_controller.read") + "-refreshed");
+        GetApplicationResponse second = get(applications);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void scopes() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(LruResponseCache.builder().build());
+
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\""));
+        this.mockWebServer.enqueue(response("test-name-1")
+            .setHeader(ETAG.toString(), "\"test-etag-1\""));
+
+        get(applications);
+        this.token.set(token("test-user", "cloud_controller.read", "cloud_controller.admin"));
+        get(applications);
+
+        this.mockWebServer.takeRequest();
+        assertThat(this.mockWebServer.takeRequest().getHeader(IF_NONE_MATCH.toString())).isNull();
+    }
+
+    private ReactorApplicationsV2 applications(LruResponseCache responseCache) {
+        return new ReactorApplicationsV2(DefaultConnectionContext.builder()
+            .apiHost("localhost")
+            .httpClient(HttpClient.create())
+            .responseCache(responseCache)
+            .build(), this.root, this.tokenProvider);
+    }
+
+    private static String encode(String s) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static GetApplicationResponse get(ReactorApplicationsV2 applications) {
+        return applications
+            .get(GetApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .build())
+            .block(Duration.ofSeconds(5));
+    }
+
+    private static MockResponse response(String name) {
+        return new MockResponse()
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBody(String.format("{\"metadata\":{\"guid\":\"test-application-id\"},\"entity\":{\"name\":\"%s\"}}", name));
+    }
+
+    private static String token(String subject, String... scopes) {
+        String claims = String.format("{\"sub\":\"%s\",\"scope\":[\"%s\"]}", subject, String.join("\",\"", scopes));
+        return String.format("%s.%s.%s", encode("{\"alg\":\"RS256\",\"typ\":\"JWT\"}"), encode(claims), encode("test-signature"));
+    }
+
+}
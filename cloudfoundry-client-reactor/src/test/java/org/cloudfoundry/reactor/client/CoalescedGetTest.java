@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import okhttp3.mockwebserver.MockResponse;
+import org.cloudfoundry.client.v2.applications.ListApplicationsRequest;
+import org.cloudfoundry.client.v2.applications.ListApplicationsResponse;
+import org.cloudfoundry.reactor.AbstractRestTest;
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.SingleFlightRequestCoalescer;
+import org.cloudfoundry.reactor.client.v2.applications.ReactorApplicationsV2;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.ipc.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class CoalescedGetTest extends AbstractRestTest {
+
+    private final AtomicInteger tokens = new AtomicInteger();
+
+    @Test
+    public void coalesced() throws InterruptedException {
+        ReactorApplicationsV2 applications = applications(DefaultConnectionContext.builder()
+            .apiHost("localhost")
+            .httpClient(HttpClient.create())
+            .requestCoalescer(SingleFlightRequestCoalescer.builder().build())
+            .build());
+
+        enqueue(1);
+        enqueue(1);
+
+        Tuple2<ListApplicationsResponse, ListApplicationsResponse> responses = Mono
+            .when(list(applications), list(applications))
+            .block(Duration.ofSeconds(5));
+
+        assertThat(responses.getT1()).isSameAs(responses.getT2());
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+        assertThat(this.tokens.get()).isEqualTo(3);
+        assertThat(this.mockWebServer.takeRequest().getPath()).isEqualTo("/v2/apps?page=1");
+
+        list(applications).block(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    private ReactorApplicationsV2 applications(ConnectionContext connectionContext) {
+        return new ReactorApplicationsV2(connectionContext, this.root, context -> Mono.fromCallable(() -> {
+            this.tokens.incrementAndGet();
+            return "test-authorization";
+        }));
+    }
+
+    private void enqueue(int totalPages) {
+        this.mockWebServer.enqueue(new MockResponse()
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBodyDelay(100, MILLISECONDS)
+            .setBody(String.format("{\"total_results\":0,\"total_pages\":%d,\"prev_url\":null,\"next_url\":null,\"resources\":[]}", totalPages)));
+    }
+
+    private static Mono<ListApplicationsResponse> list(ReactorApplicationsV2 applications) {
+        return applications
+            .list(ListApplicationsRequest.builder()
+                .page(1)
+                .build());
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class MethodAccessorTest {
+
+    @Test
+    public void create() {
+        List<MethodAccessor<String>> accessors = MethodAccessor.create(Stub.class, method -> method.getDeclaringClass() == Stub.class && method.getName().startsWith("get") ? method.getName() : null);
+
+        assertThat(accessors.stream().map(MethodAccessor::getMetadata).collect(Collectors.toList())).containsExactly("getAlpha", "getBeta");
+        assertThat(accessors.stream().map(accessor -> accessor.invoke(new Stub())).collect(Collectors.toList())).containsExactly("test-alpha", 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invokeError() {
+        MethodAccessor.create(Stub.class, method -> "fail".equals(method.getName()) ? method.getName() : null).get(0).invoke(new Stub());
+    }
+
+    private static final class Stub {
+
+        String fail() {
+            throw new IllegalStateException();
+        }
+
+        String getAlpha() {
+            return "test-alpha";
+        }
+
+        int getBeta() {
+            return 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import okhttp3.mockwebserver.MockResponse;
+import org.cloudfoundry.client.v2.applications.ListApplicationsRequest;
+import org.cloudfoundry.reactor.AbstractRestTest;
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.PaginationPolicy;
+import org.cloudfoundry.reactor.client.v2.applications.ReactorApplicationsV2;
+import org.junit.Test;
+import org.mockito.Mockito;
+import reactor.ipc.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+public final class PageSizeSelectorTest extends AbstractRestTest {
+
+    private final PaginationPolicy policy = mock(PaginationPolicy.class, RETURNS_SMART_NULLS);
+
+    private final ConnectionContext connectionContext = DefaultConnectionContext.builder()
+        .apiHost("localhost")
+        .httpClient(HttpClient.create())
+        .paginationPolicy(this.policy)
+        .build();
+
+    private final ReactorApplicationsV2 applications = new ReactorApplicationsV2(this.connectionContext, this.root, TOKEN_PROVIDER);
+
+    @Test
+    public void cancelled() throws InterruptedException {
+        when(this.policy.getPageSize("/v2/apps", 100)).thenReturn(50);
+        enqueue(2, 2);
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .build())
+            .take(1)
+            .blockLast(Duration.ofSeconds(5));
+
+        assertThat(takePath()).isEqualTo("/v2/apps?page=1&results-per-page=50");
+        Mockito.verify(this.policy, times(0)).onPage(anyString(), anyInt(), anyInt(), any(Duration.class));
+    }
+
+    @Test
+    public void listing() throws InterruptedException {
+        when(this.policy.getPageSize("/v2/apps", 100)).thenReturn(50, 10);
+        enqueue(2, 2);
+        enqueue(2, 1);
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .build())
+            .blockLast(Duration.ofSeconds(5));
+
+        assertThat(takePath()).isEqualTo("/v2/apps?page=1&results-per-page=50");
+        assertThat(takePath()).isEqualTo("/v2/apps?page=2&results-per-page=50");
+        Mockito.verify(this.policy, times(1)).getPageSize("/v2/apps", 100);
+        Mockito.verify(this.policy).onPage(eq("/v2/apps"), eq(50), eq(2), any(Duration.class));
+        Mockito.verify(this.policy).onPage(eq("/v2/apps"), eq(50), eq(1), any(Duration.class));
+    }
+
+    @Test
+    public void page() throws InterruptedException {
+        enqueue(2, 0);
+
+        this.applications
+            .list(ListApplicationsRequest.builder()
+                .page(2)
+                .build())
+            .block(Duration.ofSeconds(5));
+
+        assertThat(takePath()).isEqualTo("/v2/apps?page=2");
+        Mockito.verify(this.policy, times(0)).getPageSize(anyString(), anyInt());
+    }
+
+    @Test
+    public void sized() throws InterruptedException {
+        enqueue(1, 0);
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .resultsPerPage(20)
+                .build())
+            .blockLast(Duration.ofSeconds(5));
+
+        assertThat(takePath()).isEqualTo("/v2/apps?page=1&results-per-page=20");
+        Mockito.verify(this.policy, times(0)).getPageSize(anyString(), anyInt());
+    }
+
+    private void enqueue(int totalPages, int resources) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < resources; i++) {
+            body.append(i == 0 ? "" : ",").append(String.format("{\"metadata\":{\"guid\":\"test-guid-%d\"},\"entity\":{\"name\":\"test-name-%d\"}}", i, i));
+        }
+
+        this.mockWebServer.enqueue(new MockResponse()
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBody(String.format("{\"total_results\":0,\"total_pages\":%d,\"prev_url\":null,\"next_url\":null,\"resources\":[%s]}", totalPages, body)));
+    }
+
+    private String takePath() throws InterruptedException {
+        return this.mockWebServer.takeRequest().getPath();
+    }
+
+}
@@ -18,6 +18,9 @@ package org.cloudfoundry.reactor.client;
 
 import org.cloudfoundry.reactor.AbstractRestTest;
 import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -209,4 +212,12 @@ public final class ReactorCloudFoundryClientTest extends AbstractRestTest {
         assertThat(this.client.users()).isNotNull();
     }
 
+    @Test
+    public void warmJsonTypes() {
+        this.client.warmJsonTypes()
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
 }
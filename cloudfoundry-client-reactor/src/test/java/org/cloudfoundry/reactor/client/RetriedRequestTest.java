@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.cloudfoundry.client.v2.ClientV2Exception;
+import org.cloudfoundry.client.v2.applications.CreateApplicationRequest;
+import org.cloudfoundry.client.v2.applications.GetApplicationRequest;
+import org.cloudfoundry.client.v2.applications.UpdateApplicationRequest;
+import org.cloudfoundry.reactor.AbstractRestTest;
+import org.cloudfoundry.reactor.AdaptiveConcurrencyLimiter;
+import org.cloudfoundry.reactor.ConcurrencyLimiter;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.reactor.JitteredRetryPolicy;
+import org.cloudfoundry.reactor.RetryPolicy;
+import org.cloudfoundry.reactor.client.v2.applications.ReactorApplicationsV2;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RetriedRequestTest extends AbstractRestTest {
+
+    private final RetryPolicy retryPolicy = JitteredRetryPolicy.builder()
+        .initialBackoff(Duration.ZERO)
+        .maximumBackoff(Duration.ZERO)
+        .build();
+
+    @Test
+    public void get() throws InterruptedException {
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        this.mockWebServer.enqueue(response());
+
+        applications(this.retryPolicy, null)
+            .get(GetApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .build())
+            .as(StepVerifier::create)
+            .consumeNextWith(response -> assertThat(response.getEntity().getName()).isEqualTo("test-name"))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void permitReleasedBeforeRetry() {
+        ConcurrencyLimiter concurrencyLimiter = AdaptiveConcurrencyLimiter.builder()
+            .initialLimit(1)
+            .maximumLimit(1)
+            .minimumLimit(1)
+            .build();
+
+        RetryPolicy retryPolicy = (uri, exchange) -> exchange.apply(0)
+            .then(response -> response.receive().then()
+                .then(concurrencyLimiter.limit(uri, Mono.just(response)))
+                .then(limited -> exchange.apply(1)));
+
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        this.mockWebServer.enqueue(response());
+
+        applications(retryPolicy, concurrencyLimiter)
+            .get(GetApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .build())
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void postNotRetried() {
+        this.mockWebServer.enqueue(new MockResponse()
+            .setResponseCode(502)
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBody("{\"code\":10001,\"description\":\"test-description\",\"error_code\":\"CF-BadGateway\"}"));
+        this.mockWebServer.enqueue(response());
+
+        applications(this.retryPolicy, null)
+            .create(CreateApplicationRequest.builder()
+                .name("test-name")
+                .spaceId("test-space-id")
+                .build())
+            .as(StepVerifier::create)
+            .expectError(ClientV2Exception.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void put() throws InterruptedException {
+        this.mockWebServer.enqueue(new MockResponse().setResponseCode(502));
+        this.mockWebServer.enqueue(response());
+
+        applications(this.retryPolicy, null)
+            .update(UpdateApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .name("test-name")
+                .build())
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        RecordedRequest first = this.mockWebServer.takeRequest();
+        RecordedRequest second = this.mockWebServer.takeRequest();
+
+        assertThat(first.getMethod()).isEqualTo("PUT");
+        assertThat(first.getBody().readUtf8()).isEqualTo("{\"name\":\"test-name\"}");
+        assertThat(second.getMethod()).isEqualTo("PUT");
+        assertThat(second.getBody().readUtf8()).isEqualTo("{\"name\":\"test-name\"}");
+    }
+
+    private ReactorApplicationsV2 applications(RetryPolicy retryPolicy, ConcurrencyLimiter concurrencyLimiter) {
+        DefaultConnectionContext.Builder builder = DefaultConnectionContext.builder()
+            .apiHost("localhost")
+            .httpClient(HttpClient.create())
+            .retryPolicy(retryPolicy);
+
+        if (concurrencyLimiter != null) {
+            builder.concurrencyLimiter(concurrencyLimiter);
+        }
+
+        return new ReactorApplicationsV2(builder.build(), this.root, TOKEN_PROVIDER);
+    }
+
+    private static MockResponse response() {
+        return new MockResponse()
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBody("{\"metadata\":{\"guid\":\"test-application-id\"},\"entity\":{\"name\":\"test-name\"}}");
+    }
+
+}
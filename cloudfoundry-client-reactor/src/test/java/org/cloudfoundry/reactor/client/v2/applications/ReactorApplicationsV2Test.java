@@ -16,6 +16,7 @@
 
 package org.cloudfoundry.reactor.client.v2.applications;
 
+import okhttp3.mockwebserver.MockResponse;
 import org.cloudfoundry.client.v2.Metadata;
 import org.cloudfoundry.client.v2.applications.ApplicationEntity;
 import org.cloudfoundry.client.v2.applications.ApplicationEnvironmentRequest;
@@ -82,6 +83,7 @@ import java.nio.charset.Charset;
 import java.time.Duration;
 import java.util.Collections;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpMethod.DELETE;
 import static io.netty.handler.codec.http.HttpMethod.GET;
 import static io.netty.handler.codec.http.HttpMethod.POST;
@@ -793,6 +795,82 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void stream() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/apps?q=name%20IN%20test-name&page=1")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/apps/GET_apps_response.json")
+                .build())
+            .build());
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .name("test-name")
+                .build())
+            .map(resource -> resource.getMetadata().getId())
+            .as(StepVerifier::create)
+            .expectNext("3d294ed0-105c-4ccd-8f79-5605d6b7198c")
+            .expectNext("522c5382-29e9-48aa-9db0-9f6cfa643ec1")
+            .expectNext("ec31bfbd-ab5c-490d-8e83-3c1ea5d1bedf")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void streamCancel() throws InterruptedException {
+        enqueuePage(2, "{\"metadata\":{\"guid\":\"test-id-1\"},\"entity\":{\"name\":\"test-name-1\"}}", "{\"metadata\":{\"guid\":\"test-id-2\"},\"entity\":{\"name\":\"test-name-2\"}}");
+        enqueuePage(2, "{\"metadata\":{\"guid\":\"test-id-3\"},\"entity\":{\"name\":\"test-name-3\"}}");
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .build())
+            .map(resource -> resource.getMetadata().getId())
+            .take(1)
+            .as(StepVerifier::create)
+            .expectNext("test-id-1")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.takeRequest().getPath()).isEqualTo("/v2/apps?page=1");
+        assertThat(this.mockWebServer.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void streamInvalid() {
+        enqueuePage(1, "{\"metadata\":{\"guid\":\"test-id-1\"},\"entity\":{\"name\":\"test-name-1\"}}", "\"test-invalid\"");
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .build())
+            .map(resource -> resource.getMetadata().getId())
+            .as(StepVerifier::create)
+            .expectNext("test-id-1")
+            .expectError(RuntimeException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void streamMultiplePages() throws InterruptedException {
+        enqueuePage(2, "{\"metadata\":{\"guid\":\"test-id-1\"},\"entity\":{\"name\":\"test-name-1\"}}", "{\"metadata\":{\"guid\":\"test-id-2\"},\"entity\":{\"name\":\"test-name-2\"}}");
+        enqueuePage(2, "{\"metadata\":{\"guid\":\"test-id-3\"},\"entity\":{\"name\":\"test-name-3\"}}");
+
+        this.applications
+            .stream(ListApplicationsRequest.builder()
+                .build())
+            .map(resource -> resource.getMetadata().getId())
+            .as(StepVerifier::create)
+            .expectNext("test-id-1", "test-id-2", "test-id-3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.mockWebServer.takeRequest().getPath()).isEqualTo("/v2/apps?page=1");
+        assertThat(this.mockWebServer.takeRequest().getPath()).isEqualTo("/v2/apps?page=2");
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void summary() {
@@ -1017,4 +1095,11 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    private void enqueuePage(int totalPages, String... resources) {
+        this.mockWebServer.enqueue(new MockResponse()
+            .setHeader(CONTENT_TYPE.toString(), "application/json")
+            .setBody(String.format("{\"total_results\":%d,\"total_pages\":%d,\"prev_url\":null,\"next_url\":null,\"resources\":[%s]}", resources.length, totalPages,
+                String.join(",", resources))));
+    }
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Test;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class ContentDecoderChannelHandlerTest {
+
+    private static final String PAYLOAD = "{\"total_results\":1,\"resources\":[{\"metadata\":{\"guid\":\"test-id\"},\"entity\":{\"name\":\"test-name\"}}]}";
+
+    @Test
+    public void deflate() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(encoded)) {
+            out.write(PAYLOAD.getBytes(UTF_8));
+        }
+
+        assertThat(decode("deflate", encoded.toByteArray())).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    public void gzip() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(encoded)) {
+            out.write(PAYLOAD.getBytes(UTF_8));
+        }
+
+        assertThat(decode("gzip", encoded.toByteArray())).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    public void identity() {
+        assertThat(ContentDecoderChannelHandler.from(response(null))).isEmpty();
+        assertThat(ContentDecoderChannelHandler.from(response("identity"))).isEmpty();
+    }
+
+    private static String decode(String contentEncoding, byte[] encoded) {
+        EmbeddedChannel channel = new EmbeddedChannel(ContentDecoderChannelHandler.from(response(contentEncoding)).orElseThrow(IllegalStateException::new));
+
+        int split = encoded.length / 2;
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(encoded, 0, split)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(encoded, split, encoded.length - split)));
+
+        StringBuilder decoded = new StringBuilder();
+        HttpContent content;
+        while ((content = channel.readInbound()) != null) {
+            ByteBuf byteBuf = content.content();
+            decoded.append(byteBuf.toString(UTF_8));
+
+            if (content instanceof LastHttpContent) {
+                assertThat(byteBuf.isReadable()).isFalse();
+            }
+
+            content.release();
+        }
+
+        channel.finish();
+        return decoded.toString();
+    }
+
+    private static HttpClientResponse response(String contentEncoding) {
+        DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        if (contentEncoding != null) {
+            headers.add("Content-Encoding", contentEncoding);
+        }
+
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.responseHeaders()).thenReturn(headers);
+        return response;
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public final class DefaultSslCertificateTrusterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<TlsServer> servers = new ArrayList<>();
+
+    private final DefaultSslCertificateTruster truster = new DefaultSslCertificateTruster(Optional.empty());
+
+    @After
+    public void close() throws IOException {
+        for (TlsServer server : this.servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void concurrentProbesShared() throws Exception {
+        TlsServer server = server("localhost");
+
+        Mono<Void> first = this.truster.trustAsync("localhost", server.getPort(), TIMEOUT);
+        Mono<Void> second = this.truster.trustAsync("localhost", server.getPort(), TIMEOUT);
+
+        Mono.when(first, second).block(TIMEOUT);
+
+        assertThat(second).isSameAs(first);
+        assertThat(server.getHandshakes()).isEqualTo(1);
+        assertTrusted(server);
+    }
+
+    @Test
+    public void retriedAfterFailure() throws Exception {
+        TlsServer server = server("localhost");
+        server.setAvailable(false);
+
+        try {
+            this.truster.trustAsync("localhost", server.getPort(), Duration.ofMillis(500)).block(TIMEOUT);
+            fail("Expected probe to fail");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        server.setAvailable(true);
+        this.truster.trustAsync("localhost", server.getPort(), TIMEOUT).block(TIMEOUT);
+
+        assertThat(server.getHandshakes()).isEqualTo(1);
+        assertTrusted(server);
+    }
+
+    @Test
+    public void trust() throws Exception {
+        TlsServer server = server("localhost");
+
+        this.truster.trust("localhost", server.getPort(), TIMEOUT);
+
+        assertThat(server.getHandshakes()).isEqualTo(1);
+        assertTrusted(server);
+    }
+
+    @Test
+    public void trustAccumulated() throws Exception {
+        TlsServer first = server("first.example.com");
+        TlsServer second = server("second.example.com");
+
+        this.truster.trustAsync("localhost", first.getPort(), TIMEOUT).block(TIMEOUT);
+        this.truster.trustAsync("127.0.0.1", second.getPort(), TIMEOUT).block(TIMEOUT);
+
+        assertTrusted(first);
+        assertTrusted(second);
+    }
+
+    @Test
+    public void untrusted() throws Exception {
+        TlsServer server = server("localhost");
+
+        try {
+            this.truster.checkServerTrusted(server.getCertificateChain(), "RSA");
+            fail("Expected certificate not to be trusted");
+        } catch (CertificateException e) {
+            // expected
+        }
+    }
+
+    private void assertTrusted(TlsServer server) throws CertificateException {
+        this.truster.checkServerTrusted(server.getCertificateChain(), "RSA");
+    }
+
+    private TlsServer server(String hostname) throws Exception {
+        TlsServer server = new TlsServer(hostname);
+        this.servers.add(server);
+        return server;
+    }
+
+    private static final class TlsServer implements Runnable {
+
+        private final AtomicBoolean available = new AtomicBoolean(true);
+
+        private final SelfSignedCertificate certificate;
+
+        private final AtomicInteger handshakes = new AtomicInteger();
+
+        private final SSLServerSocket serverSocket;
+
+        TlsServer(String hostname) throws GeneralSecurityException, IOException {
+            this.certificate = new SelfSignedCertificate(hostname);
+
+            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            keyStore.load(null);
+            keyStore.setKeyEntry("server", this.certificate.key(), new char[0], new X509Certificate[]{this.certificate.cert()});
+
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, new char[0]);
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+            this.serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+            Thread thread = new Thread(this, "tls-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (!this.serverSocket.isClosed()) {
+                try {
+                    SSLSocket socket = (SSLSocket) this.serverSocket.accept();
+
+                    if (!this.available.get()) {
+                        socket.close();
+                        continue;
+                    }
+
+                    Thread thread = new Thread(() -> handle(socket), "tls-server-connection");
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void close() throws IOException {
+            this.serverSocket.close();
+            this.certificate.delete();
+        }
+
+        private X509Certificate[] getCertificateChain() {
+            return new X509Certificate[]{this.certificate.cert()};
+        }
+
+        private int getHandshakes() {
+            return this.handshakes.get();
+        }
+
+        private int getPort() {
+            return this.serverSocket.getLocalPort();
+        }
+
+        private void handle(SSLSocket socket) {
+            try (SSLSocket s = socket; InputStream in = s.getInputStream()) {
+                s.startHandshake();
+                this.handshakes.incrementAndGet();
+
+                while (in.read() != -1) {
+                    // drain until the client disconnects
+                }
+            } catch (IOException e) {
+                // the client disconnected
+            }
+        }
+
+        private void setAvailable(boolean available) {
+            this.available.set(available);
+        }
+
+    }
+
+}
@@ -40,6 +40,8 @@ import static org.mockito.Mockito.when;
 
 public final class ErrorPayloadMapperTest {
 
+    private final JsonTypeRegistry jsonTypeRegistry = new JsonTypeRegistry(new ObjectMapper());
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
@@ -60,6 +62,22 @@ public final class ErrorPayloadMapperTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void clientV2BadPayloadJsonTypeRegistry() throws IOException {
+        when(this.response.status()).thenReturn(BAD_REQUEST);
+        when(this.response.receive()).thenReturn(ByteBufFlux.fromPath(new ClassPathResource("fixtures/invalid_error_response.json").getFile().toPath()));
+
+        Mono.just(this.response)
+            .transform(ErrorPayloadMapper.clientV2(this.jsonTypeRegistry))
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t)
+                .isInstanceOf(UnknownCloudFoundryException.class)
+                .hasMessage("Unknown Cloud Foundry Exception")
+                .extracting("statusCode", "payload")
+                .containsExactly(BAD_REQUEST.code(), "Invalid Error Response"))
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void clientV2ClientError() throws IOException {
         when(this.response.status()).thenReturn(BAD_REQUEST);
@@ -76,6 +94,22 @@ public final class ErrorPayloadMapperTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void clientV2ClientErrorJsonTypeRegistry() throws IOException {
+        when(this.response.status()).thenReturn(BAD_REQUEST);
+        when(this.response.receive()).thenReturn(ByteBufFlux.fromPath(new ClassPathResource("fixtures/client/v2/error_response.json").getFile().toPath()));
+
+        Mono.just(this.response)
+            .transform(ErrorPayloadMapper.clientV2(this.jsonTypeRegistry))
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t)
+                .isInstanceOf(ClientV2Exception.class)
+                .hasMessage("CF-UnprocessableEntity(10008): The request is semantically invalid: space_guid and name unique")
+                .extracting("statusCode", "code", "description", "errorCode")
+                .containsExactly(BAD_REQUEST.code(), 10008, "The request is semantically invalid: space_guid and name unique", "CF-UnprocessableEntity"))
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void clientV2NoError() {
         when(this.response.status()).thenReturn(OK);
@@ -120,6 +154,22 @@ public final class ErrorPayloadMapperTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void clientV3BadPayloadJsonTypeRegistry() throws IOException {
+        when(this.response.status()).thenReturn(BAD_REQUEST);
+        when(this.response.receive()).thenReturn(ByteBufFlux.fromPath(new ClassPathResource("fixtures/invalid_error_response.json").getFile().toPath()));
+
+        Mono.just(this.response)
+            .transform(ErrorPayloadMapper.clientV3(this.jsonTypeRegistry))
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t)
+                .isInstanceOf(UnknownCloudFoundryException.class)
+                .hasMessage("Unknown Cloud Foundry Exception")
+                .extracting("statusCode", "payload")
+                .containsExactly(BAD_REQUEST.code(), "Invalid Error Response"))
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void clientV3ClientError() throws IOException {
         when(this.response.status()).thenReturn(BAD_REQUEST);
@@ -142,6 +192,28 @@ public final class ErrorPayloadMapperTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void clientV3ClientErrorJsonTypeRegistry() throws IOException {
+        when(this.response.status()).thenReturn(BAD_REQUEST);
+        when(this.response.receive()).thenReturn(ByteBufFlux.fromPath(new ClassPathResource("fixtures/client/v3/error_response.json").getFile().toPath()));
+
+        Mono.just(this.response)
+            .transform(ErrorPayloadMapper.clientV3(this.jsonTypeRegistry))
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> {
+                assertThat(t)
+                    .isInstanceOf(ClientV3Exception.class)
+                    .hasMessage("CF-UnprocessableEntity(10008): The request is semantically invalid: something went wrong")
+                    .extracting("statusCode")
+                    .containsExactly(BAD_REQUEST.code());
+
+                assertThat(((ClientV3Exception) t).getErrors())
+                    .flatExtracting(ClientV3Exception.Error::getCode, ClientV3Exception.Error::getDetail, ClientV3Exception.Error::getTitle)
+                    .containsExactly(10008, "The request is semantically invalid: something went wrong", "CF-UnprocessableEntity");
+            })
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void clientV3NoError() {
         when(this.response.status()).thenReturn(OK);
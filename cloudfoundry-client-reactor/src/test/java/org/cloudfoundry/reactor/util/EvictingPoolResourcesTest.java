@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.Test;
+import org.mockito.Mockito;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+public final class EvictingPoolResourcesTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    private final ChannelPool channelPool = mock(ChannelPool.class, RETURNS_SMART_NULLS);
+
+    private final PoolResources delegate = mock(PoolResources.class, RETURNS_SMART_NULLS);
+
+    @Test
+    public void evictedWhileAcquired() {
+        EmbeddedChannel replacement = new EmbeddedChannel();
+        Promise<Channel> pending = ImmediateEventExecutor.INSTANCE.newPromise();
+        ChannelPool pool = selectOrCreate(new EvictingPoolResources(this.delegate, Optional.of(Duration.ZERO), Optional.empty()));
+
+        pool.acquire();
+        pool.release(this.channel);
+
+        when(this.channelPool.acquire()).thenReturn(pending, ImmediateEventExecutor.INSTANCE.newSucceededFuture(replacement));
+        Future<Channel> acquired = pool.acquire();
+
+        this.channel.runScheduledPendingTasks();
+        pending.setSuccess(this.channel);
+
+        assertThat(this.channel.isOpen()).isFalse();
+        assertThat(acquired.getNow()).isSameAs(replacement);
+        Mockito.verify(this.channelPool, times(2)).release(this.channel);
+    }
+
+    @Test
+    public void expired() {
+        ChannelPool pool = selectOrCreate(new EvictingPoolResources(this.delegate, Optional.empty(), Optional.of(Duration.ZERO)));
+
+        pool.acquire();
+        pool.release(this.channel);
+
+        assertThat(this.channel.isOpen()).isFalse();
+    }
+
+    @Test
+    public void idle() {
+        ChannelPool pool = selectOrCreate(new EvictingPoolResources(this.delegate, Optional.of(Duration.ZERO), Optional.empty()));
+
+        pool.acquire();
+        pool.release(this.channel);
+
+        assertThat(this.channel.isOpen()).isTrue();
+
+        this.channel.runScheduledPendingTasks();
+        assertThat(this.channel.isOpen()).isFalse();
+    }
+
+    @Test
+    public void reacquired() {
+        ChannelPool pool = selectOrCreate(new EvictingPoolResources(this.delegate, Optional.of(Duration.ZERO), Optional.of(Duration.ofMinutes(5))));
+
+        pool.acquire();
+        pool.release(this.channel);
+        pool.acquire();
+
+        this.channel.runScheduledPendingTasks();
+        assertThat(this.channel.isOpen()).isTrue();
+    }
+
+    private ChannelPool selectOrCreate(EvictingPoolResources poolResources) {
+        when(this.channelPool.acquire()).thenAnswer(invocation -> ImmediateEventExecutor.INSTANCE.newSucceededFuture(this.channel));
+        when(this.delegate.selectOrCreate(any(), any())).thenReturn(this.channelPool);
+
+        return poolResources.selectOrCreate(InetSocketAddress.createUnresolved("localhost", 443), () -> null);
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import org.cloudfoundry.reactor.RequestObserver;
+import org.junit.Test;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.NettyPipeline;
+import reactor.ipc.netty.http.client.HttpClientRequest;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Optional;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class ExchangeObservationTest {
+
+    private static final String URI = "https://api.run.pivotal.io/v2/apps/3a3e8b5a-5e8c-4d4f-9f6a-6a0c9f8e2b1d/routes";
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    private final HttpClientRequest outbound = mock(HttpClientRequest.class, RETURNS_SMART_NULLS);
+
+    private final RequestObserver requestObserver = mock(RequestObserver.class);
+
+    {
+        NettyContext context = mock(NettyContext.class, RETURNS_SMART_NULLS);
+        when(context.channel()).thenReturn(this.channel);
+        when(this.outbound.context()).thenReturn(context);
+
+        this.channel.pipeline().addLast(NettyPipeline.HttpEncoder, new ChannelOutboundHandlerAdapter());
+    }
+
+    @Test
+    public void cancel() {
+        ExchangeObservation observation = start();
+
+        observation.cancel();
+        this.channel.close();
+
+        assertThat(this.channel.pipeline().context(observation)).isNull();
+        verify(this.requestObserver, never()).onComplete(any());
+        verify(this.requestObserver, never()).onError(any(), any());
+    }
+
+    @Test
+    public void complete() {
+        ExchangeObservation observation = start();
+
+        this.channel.writeOutbound(Unpooled.wrappedBuffer(new byte[10]));
+        this.channel.writeInbound(new DefaultHttpResponse(HTTP_1_1, OK));
+        this.channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[5])));
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[3])));
+
+        assertThat(observation.getBytesIn()).isEqualTo(8);
+        assertThat(observation.getBytesOut()).isEqualTo(10);
+        assertThat(observation.getMethod()).isEqualTo("GET");
+        assertThat(observation.getPath()).isEqualTo("/v2/apps/{id}/routes");
+        assertThat(observation.getStatus()).hasValue(200);
+        assertThat(this.channel.pipeline().context(observation)).isNull();
+        verify(this.requestObserver).onStart(observation);
+        verify(this.requestObserver).onFirstByte(observation);
+        verify(this.requestObserver).onComplete(observation);
+        verify(this.requestObserver, never()).onError(any(), any());
+    }
+
+    @Test
+    public void error() {
+        ExchangeObservation observation = start();
+        IOException error = new IOException("test-error");
+
+        observation.error(error);
+        this.channel.close();
+
+        assertThat(this.channel.pipeline().context(observation)).isNull();
+        verify(this.requestObserver, times(1)).onError(any(), any());
+        verify(this.requestObserver).onError(observation, error);
+        verify(this.requestObserver, never()).onComplete(any());
+    }
+
+    @Test
+    public void inactive() {
+        ExchangeObservation observation = start();
+
+        this.channel.writeInbound(new DefaultHttpResponse(HTTP_1_1, OK));
+        this.channel.close();
+
+        assertThat(observation.getStatus()).hasValue(200);
+        verify(this.requestObserver).onError(any(ExchangeObservation.class), any(ClosedChannelException.class));
+        verify(this.requestObserver, never()).onComplete(any());
+    }
+
+    @Test
+    public void pooledChannel() {
+        ExchangeObservation first = start();
+        this.channel.writeInbound(new DefaultHttpResponse(HTTP_1_1, OK));
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[3])));
+
+        ExchangeObservation second = start();
+        this.channel.writeOutbound(Unpooled.wrappedBuffer(new byte[4]));
+        this.channel.writeInbound(new DefaultHttpResponse(HTTP_1_1, OK));
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[7])));
+
+        assertThat(first.getBytesIn()).isEqualTo(3);
+        assertThat(first.getBytesOut()).isEqualTo(0);
+        assertThat(second.getBytesIn()).isEqualTo(7);
+        assertThat(second.getBytesOut()).isEqualTo(4);
+        verify(this.requestObserver).onComplete(first);
+        verify(this.requestObserver).onComplete(second);
+    }
+
+    @Test
+    public void staleObservation() {
+        ExchangeObservation stale = start();
+        ExchangeObservation current = start();
+
+        this.channel.writeInbound(new DefaultHttpResponse(HTTP_1_1, OK));
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[3])));
+
+        assertThat(stale.getBytesIn()).isEqualTo(0);
+        assertThat(current.getBytesIn()).isEqualTo(3);
+        assertThat(this.channel.pipeline().names()).doesNotContain("exchangeObservation");
+    }
+
+    private ExchangeObservation start() {
+        ExchangeObservation observation = new ExchangeObservation(Optional.of(this.requestObserver), "GET", URI, 0);
+        observation.start(null);
+        observation.attach(this.outbound);
+        return observation;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.Test;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class InstrumentedPoolResourcesTest {
+
+    private final ChannelPool channelPool = mock(ChannelPool.class, RETURNS_SMART_NULLS);
+
+    private final PoolResources delegate = mock(PoolResources.class, RETURNS_SMART_NULLS);
+
+    private final InstrumentedPoolResources poolResources = new InstrumentedPoolResources("test-pool", this.delegate);
+
+    @Test
+    public void acquireAndRelease() {
+        Channel channel = mock(Channel.class, RETURNS_SMART_NULLS);
+        Promise<Channel> acquisition = ImmediateEventExecutor.INSTANCE.newPromise();
+        when(this.channelPool.acquire()).thenReturn(acquisition);
+
+        ChannelPool pool = selectOrCreate();
+        pool.acquire();
+
+        assertThat(this.poolResources.getPending()).isEqualTo(1);
+        assertThat(this.poolResources.getAcquired()).isEqualTo(0);
+
+        acquisition.setSuccess(channel);
+
+        assertThat(this.poolResources.getPending()).isEqualTo(0);
+        assertThat(this.poolResources.getAcquired()).isEqualTo(1);
+        assertThat(this.poolResources.getAcquisitions()).isEqualTo(1);
+
+        pool.release(channel);
+
+        assertThat(this.poolResources.getAcquired()).isEqualTo(0);
+        assertThat(this.poolResources.getAcquisitions()).isEqualTo(1);
+    }
+
+    @Test
+    public void acquireFailure() {
+        Promise<Channel> acquisition = ImmediateEventExecutor.INSTANCE.newPromise();
+        when(this.channelPool.acquire()).thenReturn(acquisition);
+
+        selectOrCreate().acquire();
+        acquisition.setFailure(new TimeoutException("test-timeout"));
+
+        assertThat(this.poolResources.getPending()).isEqualTo(0);
+        assertThat(this.poolResources.getAcquired()).isEqualTo(0);
+        assertThat(this.poolResources.getFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void sameChannelPool() {
+        assertThat(selectOrCreate()).isSameAs(selectOrCreate());
+    }
+
+    private ChannelPool selectOrCreate() {
+        when(this.delegate.selectOrCreate(any(), any())).thenReturn(this.channelPool);
+        return this.poolResources.selectOrCreate(InetSocketAddress.createUnresolved("localhost", 443), () -> null);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.ByteBufFlux;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class JsonCodecTest {
+
+    private final Map<String, Object> envelope = new HashMap<>();
+
+    private final JsonTypeRegistry jsonTypeRegistry = new JsonTypeRegistry(new ObjectMapper());
+
+    @Test
+    public void decodeElements() {
+        ByteBuf payload = payload("{\"total_pages\":1,\"resources\":[\"test-element-1\",\"test-element-2\"]}");
+
+        response(payload)
+            .as(JsonCodec.decodeElements(this.jsonTypeRegistry, "resources", String.class, this.envelope::putAll))
+            .as(StepVerifier::create)
+            .expectNext("test-element-1", "test-element-2")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.envelope).containsEntry("total_pages", 1);
+        assertThat(payload.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    public void decodeElementsCancel() {
+        ByteBuf payload = payload("{\"total_pages\":1,\"resources\":[\"test-element-1\",\"test-element-2\"]}");
+
+        response(payload)
+            .as(JsonCodec.decodeElements(this.jsonTypeRegistry, "resources", String.class, this.envelope::putAll))
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.envelope).isEmpty();
+        assertThat(payload.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    public void decodeElementsInvalid() {
+        ByteBuf payload = payload("{\"total_pages\":1,\"resources\":[\"test-element-1\",{}]}");
+
+        response(payload)
+            .as(JsonCodec.decodeElements(this.jsonTypeRegistry, "resources", String.class, this.envelope::putAll))
+            .as(StepVerifier::create)
+            .expectNext("test-element-1")
+            .expectError(JsonParsingException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(payload.refCnt()).isEqualTo(1);
+    }
+
+    private static ByteBuf payload(String content) {
+        return Unpooled.copiedBuffer(content, UTF_8);
+    }
+
+    private static Mono<HttpClientResponse> response(ByteBuf payload) {
+        HttpClientResponse response = mock(HttpClientResponse.class, RETURNS_SMART_NULLS);
+        when(response.addHandler(any(ChannelHandler.class))).thenReturn(response);
+        when(response.receive()).thenReturn(ByteBufFlux.fromInbound(Flux.just(payload)));
+
+        return Mono.just(response);
+    }
+
+}
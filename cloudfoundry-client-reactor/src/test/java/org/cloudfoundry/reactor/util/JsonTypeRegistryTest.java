@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cloudfoundry.client.v2.applications.ApplicationResource;
+import org.cloudfoundry.client.v2.applications.CreateApplicationRequest;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class JsonTypeRegistryTest {
+
+    private final JsonTypeRegistry jsonTypeRegistry = new JsonTypeRegistry(new ObjectMapper());
+
+    @Test
+    public void reader() {
+        assertThat(this.jsonTypeRegistry.getReader(ApplicationResource.class)).isSameAs(this.jsonTypeRegistry.getReader(ApplicationResource.class));
+    }
+
+    @Test
+    public void sizeEstimate() {
+        assertThat(this.jsonTypeRegistry.getSizeEstimate(CreateApplicationRequest.class)).isEqualTo(256);
+
+        this.jsonTypeRegistry.updateSizeEstimate(CreateApplicationRequest.class, 1_000);
+        assertThat(this.jsonTypeRegistry.getSizeEstimate(CreateApplicationRequest.class)).isEqualTo(1_000);
+
+        this.jsonTypeRegistry.updateSizeEstimate(CreateApplicationRequest.class, 200);
+        assertThat(this.jsonTypeRegistry.getSizeEstimate(CreateApplicationRequest.class)).isEqualTo(800);
+    }
+
+    @Test
+    public void writer() {
+        assertThat(this.jsonTypeRegistry.getWriter(CreateApplicationRequest.class)).isPresent();
+        assertThat(this.jsonTypeRegistry.getWriter(CreateApplicationRequest.class).get()).isSameAs(this.jsonTypeRegistry.getWriter(CreateApplicationRequest.class).get());
+    }
+
+    @Test
+    public void writerNotSerializable() {
+        assertThat(this.jsonTypeRegistry.getWriter(Object.class)).isEmpty();
+    }
+
+}
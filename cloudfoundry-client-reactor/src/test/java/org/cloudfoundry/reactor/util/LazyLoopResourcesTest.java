@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.channel.EventLoopGroup;
+import org.junit.Test;
+import reactor.ipc.netty.resources.LoopResources;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class LazyLoopResourcesTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final LoopResources delegate = mock(LoopResources.class, RETURNS_SMART_NULLS);
+
+    private final LazyLoopResources loopResources = new LazyLoopResources(() -> {
+        this.created.incrementAndGet();
+        return this.delegate;
+    });
+
+    @Test
+    public void created() {
+        EventLoopGroup eventLoopGroup = mock(EventLoopGroup.class);
+        when(this.delegate.onClient(false)).thenReturn(eventLoopGroup);
+
+        assertThat(this.loopResources.onClient(false)).isSameAs(eventLoopGroup);
+        assertThat(this.loopResources.onClient(false)).isSameAs(eventLoopGroup);
+        assertThat(this.loopResources.isCreated()).isTrue();
+        assertThat(this.created.get()).isEqualTo(1);
+
+        this.loopResources.dispose();
+
+        verify(this.delegate).dispose();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void disposed() {
+        this.loopResources.dispose();
+        this.loopResources.onClient(false);
+    }
+
+    @Test
+    public void notCreated() {
+        this.loopResources.dispose();
+
+        assertThat(this.loopResources.isCreated()).isFalse();
+        assertThat(this.created.get()).isEqualTo(0);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class RefreshingCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void failedRefresh() {
+        RefreshingCache<Integer> cache = new RefreshingCache<>(Mono.fromCallable(() -> {
+            if (this.loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("test-error");
+            }
+
+            return this.loads.get();
+        }), Duration.ZERO);
+
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(cache.get().block()).isEqualTo(1);
+    }
+
+    @Test
+    public void fresh() {
+        RefreshingCache<Integer> cache = new RefreshingCache<>(Mono.fromCallable(this.loads::incrementAndGet), Duration.ofMinutes(5));
+
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(this.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void sharedLoad() {
+        MonoProcessor<Integer> source = MonoProcessor.create();
+        RefreshingCache<Integer> cache = new RefreshingCache<>(source.doOnSubscribe(subscription -> this.loads.incrementAndGet()), Duration.ofMinutes(5));
+
+        MonoProcessor<Integer> first = cache.get().subscribe();
+        MonoProcessor<Integer> second = cache.get().subscribe();
+        source.onNext(1);
+
+        assertThat(first.peek()).isEqualTo(1);
+        assertThat(second.peek()).isEqualTo(1);
+        assertThat(this.loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void stale() {
+        RefreshingCache<Integer> cache = new RefreshingCache<>(Mono.fromCallable(this.loads::incrementAndGet), Duration.ZERO);
+
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(cache.get().block()).isEqualTo(1);
+        assertThat(cache.get().block()).isEqualTo(2);
+        assertThat(this.loads.get()).isEqualTo(3);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import org.junit.Test;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class UriEncoderTest {
+
+    private static final UriComponents ROOT = UriComponentsBuilder.fromUriString("https://api.run.pivotal.io:443").build();
+
+    @Test
+    public void guid() {
+        assertEncoded(UriComponentsBuilder.newInstance().uriComponents(ROOT)
+            .pathSegment("v2", "apps", "1e1b3a4c-1d7f-4c8e-9b3a-2f1c0e9d8a7b", "routes")
+            .queryParam("page", 1)
+            .queryParam("results-per-page", 100)
+            .build());
+    }
+
+    @Test
+    public void pathCharacters() {
+        for (char c = 0x20; c < 0x7f; c++) {
+            assertEncoded(UriComponentsBuilder.newInstance().uriComponents(ROOT)
+                .pathSegment("v2", "test" + c + "name")
+                .build());
+        }
+    }
+
+    @Test
+    public void queryCharacters() {
+        for (char c = 0x20; c < 0x7f; c++) {
+            assertEncoded(UriComponentsBuilder.newInstance().uriComponents(ROOT)
+                .pathSegment("v2", "apps")
+                .queryParam("q", "name:test" + c + "name")
+                .build());
+        }
+    }
+
+    @Test
+    public void rootPath() {
+        assertEncoded(UriComponentsBuilder.newInstance().uriComponents(UriComponentsBuilder.fromUriString("https://uaa.run.pivotal.io/uaa").build())
+            .pathSegment("oauth", "token")
+            .build());
+    }
+
+    @Test
+    public void unicode() {
+        assertEncoded(UriComponentsBuilder.newInstance().uriComponents(ROOT)
+            .pathSegment("v2", "test-näme")
+            .queryParam("q", "name:test-näme")
+            .build());
+    }
+
+    private static void assertEncoded(UriComponents components) {
+        assertThat(UriEncoder.toUriString(components)).isEqualTo(components.encode().toUriString());
+    }
+
+}
@@ -153,6 +153,14 @@ public interface ApplicationsV2 {
      */
     Mono<ApplicationStatisticsResponse> statistics(ApplicationStatisticsRequest request);
 
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/list_all_apps.html">List all Apps</a> request for every page, emitting each application as soon as it has been read
+     *
+     * @param request the List Applications request
+     * @return the applications from every page of the List Applications request
+     */
+    Flux<ApplicationResource> stream(ListApplicationsRequest request);
+
     /**
      * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/get_app_summary.html">Get Application Summary</a> request
      *
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Java Flight Recorder event type, defined at runtime so that the API can be used on Java 8.  On runtimes without the {@code jdk.jfr} API, or that cannot define the event type, every event of
+ * the type is discarded.  Whether events are recorded, and their thresholds, are controlled by the settings of the running recordings.
+ */
+public final class FlightRecorderEventType {
+
+    private static final Api API = Api.load();
+
+    private static final String CATEGORY = "Cloud Foundry";
+
+    private static final FlightRecorderEvent DISCARDED = new FlightRecorderEvent(null);
+
+    private final Object factory;
+
+    private final Object template;
+
+    private FlightRecorderEventType(Object factory) {
+        this.factory = factory;
+        this.template = factory == null ? null : API.newEvent(factory);
+    }
+
+    /**
+     * Defines an event type
+     *
+     * @param name        the name of the event type
+     * @param label       the human-readable label of the event type
+     * @param description the description of the event type
+     * @param fields      the fields of the event type, in the order that values are set
+     * @return the event type
+     */
+    public static FlightRecorderEventType create(String name, String label, String description, Field... fields) {
+        return new FlightRecorderEventType(API == null ? null : API.createFactory(name, label, description, fields));
+    }
+
+    /**
+     * Returns a field of a Java type
+     *
+     * @param name  the name of the field
+     * @param label the human-readable label of the field
+     * @param type  the type of the field.  Must be a primitive type or {@link String}.
+     * @return the field
+     */
+    public static Field field(String name, String label, Class<?> type) {
+        return new Field(name, label, type, false);
+    }
+
+    /**
+     * Returns a {@code long} field holding a duration in nanoseconds
+     *
+     * @param name  the name of the field
+     * @param label the human-readable label of the field
+     * @return the field
+     */
+    public static Field timespan(String name, String label) {
+        return new Field(name, label, long.class, true);
+    }
+
+    /**
+     * Starts timing an event.  If the event type is not enabled in any recording, returns an event that discards its values.
+     *
+     * @return the started event
+     */
+    public FlightRecorderEvent begin() {
+        if (!isEnabled()) {
+            return DISCARDED;
+        }
+
+        Object event = API.newEvent(this.factory);
+        API.begin(event);
+        return new FlightRecorderEvent(event);
+    }
+
+    /**
+     * Returns whether the event type is enabled in any recording
+     *
+     * @return {@code true} if events of this type are recorded
+     */
+    public boolean isEnabled() {
+        return this.template != null && API.isEnabled(this.template);
+    }
+
+    /**
+     * A field of an event type
+     */
+    public static final class Field {
+
+        private final String label;
+
+        private final String name;
+
+        private final boolean timespan;
+
+        private final Class<?> type;
+
+        private Field(String name, String label, Class<?> type, boolean timespan) {
+            this.label = label;
+            this.name = name;
+            this.timespan = timespan;
+            this.type = type;
+        }
+
+    }
+
+    /**
+     * An event of a {@link FlightRecorderEventType}
+     */
+    public static final class FlightRecorderEvent {
+
+        private final Object event;
+
+        private FlightRecorderEvent(Object event) {
+            this.event = event;
+        }
+
+        /**
+         * Ends timing the event and commits it to the recordings, if it meets their settings
+         */
+        public void commit() {
+            if (this.event != null) {
+                API.commit(this.event);
+            }
+        }
+
+        /**
+         * Sets the value of a field
+         *
+         * @param index the index of the field
+         * @param value the value
+         * @return this event
+         */
+        public FlightRecorderEvent set(int index, Object value) {
+            if (this.event != null) {
+                API.set(this.event, index, value);
+            }
+
+            return this;
+        }
+
+    }
+
+    private static final class Api {
+
+        private final MethodHandle annotationElement;
+
+        private final MethodHandle begin;
+
+        private final Class<? extends Annotation> category;
+
+        private final MethodHandle commit;
+
+        private final MethodHandle createFactory;
+
+        private final Class<? extends Annotation> description;
+
+        private final MethodHandle end;
+
+        private final MethodHandle isEnabled;
+
+        private final Class<? extends Annotation> label;
+
+        private final Class<? extends Annotation> name;
+
+        private final MethodHandle newEvent;
+
+        private final MethodHandle set;
+
+        private final MethodHandle shouldCommit;
+
+        private final Class<? extends Annotation> timespan;
+
+        private final MethodHandle valueDescriptor;
+
+        private Api() throws ReflectiveOperationException {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> annotationElementType = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> eventType = Class.forName("jdk.jfr.Event");
+            Class<?> eventFactoryType = Class.forName("jdk.jfr.EventFactory");
+            Class<?> valueDescriptorType = Class.forName("jdk.jfr.ValueDescriptor");
+
+            this.annotationElement = lookup.findConstructor(annotationElementType, MethodType.methodType(void.class, Class.class, Object.class));
+            this.begin = erase(lookup.findVirtual(eventType, "begin", MethodType.methodType(void.class)));
+            this.commit = erase(lookup.findVirtual(eventType, "commit", MethodType.methodType(void.class)));
+            this.createFactory = lookup.findStatic(eventFactoryType, "create", MethodType.methodType(eventFactoryType, List.class, List.class));
+            this.end = erase(lookup.findVirtual(eventType, "end", MethodType.methodType(void.class)));
+            this.isEnabled = erase(lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class)));
+            this.newEvent = erase(lookup.findVirtual(eventFactoryType, "newEvent", MethodType.methodType(eventType)));
+            this.set = erase(lookup.findVirtual(eventType, "set", MethodType.methodType(void.class, int.class, Object.class)));
+            this.shouldCommit = erase(lookup.findVirtual(eventType, "shouldCommit", MethodType.methodType(boolean.class)));
+            this.valueDescriptor = lookup.findConstructor(valueDescriptorType, MethodType.methodType(void.class, Class.class, String.class, List.class));
+
+            this.category = annotation("jdk.jfr.Category");
+            this.description = annotation("jdk.jfr.Description");
+            this.label = annotation("jdk.jfr.Label");
+            this.name = annotation("jdk.jfr.Name");
+            this.timespan = annotation("jdk.jfr.Timespan");
+        }
+
+        private static Class<? extends Annotation> annotation(String className) throws ClassNotFoundException {
+            return Class.forName(className).asSubclass(Annotation.class);
+        }
+
+        private void begin(Object event) {
+            try {
+                this.begin.invokeExact(event);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private void commit(Object event) {
+            try {
+                this.end.invokeExact(event);
+
+                if ((boolean) this.shouldCommit.invokeExact(event)) {
+                    this.commit.invokeExact(event);
+                }
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private Object createFactory(String name, String label, String description, Field... fields) {
+            try {
+                List<Object> annotations = Arrays.asList(
+                    this.annotationElement.invoke(this.name, name),
+                    this.annotationElement.invoke(this.label, label),
+                    this.annotationElement.invoke(this.description, description),
+                    this.annotationElement.invoke(this.category, new String[]{CATEGORY}));
+
+                List<Object> valueDescriptors = new ArrayList<>(fields.length);
+                for (Field field : fields) {
+                    List<Object> fieldAnnotations = new ArrayList<>();
+                    fieldAnnotations.add(this.annotationElement.invoke(this.label, field.label));
+
+                    if (field.timespan) {
+                        fieldAnnotations.add(this.annotationElement.invoke(this.timespan, "NANOSECONDS"));
+                    }
+
+                    valueDescriptors.add(this.valueDescriptor.invoke(field.type, field.name, Collections.unmodifiableList(fieldAnnotations)));
+                }
+
+                return this.createFactory.invoke(annotations, valueDescriptors);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        private static MethodHandle erase(MethodHandle methodHandle) {
+            return methodHandle.asType(methodHandle.type().erase());
+        }
+
+        private boolean isEnabled(Object event) {
+            try {
+                return (boolean) this.isEnabled.invokeExact(event);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private static Api load() {
+            try {
+                return new Api();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+
+        private Object newEvent(Object factory) {
+            try {
+                return (Object) this.newEvent.invokeExact(factory);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private void set(Object event, int index, Object value) {
+            try {
+                this.set.invokeExact(event, index, value);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+    }
+
+}
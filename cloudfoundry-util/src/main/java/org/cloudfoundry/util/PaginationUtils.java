@@ -16,6 +16,7 @@
 
 package org.cloudfoundry.util;
 
+import org.cloudfoundry.util.FlightRecorderEventType.FlightRecorderEvent;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -27,6 +28,14 @@ import java.util.function.Function;
  */
 public final class PaginationUtils {
 
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private static final FlightRecorderEventType PAGE_FETCH_EVENT = FlightRecorderEventType.create("org.cloudfoundry.PageFetch", "Page Fetch", "A request for a page of a paginated listing",
+        FlightRecorderEventType.field("api", "API", String.class),
+        FlightRecorderEventType.field("page", "Page", int.class),
+        FlightRecorderEventType.field("concurrency", "Concurrency", int.class),
+        FlightRecorderEventType.field("error", "Error", String.class));
+
     private PaginationUtils() {
     }
 
@@ -41,10 +50,27 @@ public final class PaginationUtils {
     public static <T extends org.cloudfoundry.client.v2.Resource<?>, U extends org.cloudfoundry.client.v2.PaginatedResponse<T>> Flux<T> requestClientV2Resources(
         Function<Integer, Mono<U>> pageSupplier) {
 
-        return pageSupplier
+        return requestClientV2Resources(pageSupplier, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Resources are emitted in page order as soon as each page arrives.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v2.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages requested concurrently or held ahead of the subscriber.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T extends org.cloudfoundry.client.v2.Resource<?>, U extends org.cloudfoundry.client.v2.PaginatedResponse<T>> Flux<T> requestClientV2Resources(
+        Function<Integer, Mono<U>> pageSupplier, int concurrency) {
+
+        Function<Integer, Mono<U>> recordedPageSupplier = recorded("v2", pageSupplier, concurrency);
+
+        return recordedPageSupplier
             .apply(1)
-            .flatMap(requestClientV2AdditionalPages(pageSupplier))
-            .flatMap(ResourceUtils::getResources);
+            .flatMap(requestClientV2AdditionalPages(recordedPageSupplier, concurrency))
+            .concatMap(ResourceUtils::getResources, 1);
     }
 
     /**
@@ -55,12 +81,27 @@ public final class PaginationUtils {
      * @param <U>          the type of {@link org.cloudfoundry.client.v3.PaginatedResponse}.
      * @return a stream of <code>T</code> objects.
      */
-    @SuppressWarnings("rawtypes")
     public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(Function<Integer, Mono<U>> pageSupplier) {
-        return pageSupplier
+        return requestClientV3Resources(pageSupplier, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Resources are emitted in page order as soon as each page arrives.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v3.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages requested concurrently or held ahead of the subscriber.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    @SuppressWarnings("rawtypes")
+    public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(Function<Integer, Mono<U>> pageSupplier, int concurrency) {
+        Function<Integer, Mono<U>> recordedPageSupplier = recorded("v3", pageSupplier, concurrency);
+
+        return recordedPageSupplier
             .apply(1)
-            .flatMap(requestClientV3AdditionalPages(pageSupplier))
-            .flatMapIterable(org.cloudfoundry.client.v3.PaginatedResponse::getResources);
+            .flatMap(requestClientV3AdditionalPages(recordedPageSupplier, concurrency))
+            .flatMapIterable(org.cloudfoundry.client.v3.PaginatedResponse::getResources, 1);
     }
 
     /**
@@ -71,46 +112,74 @@ public final class PaginationUtils {
      * @param <U>          the type of {@link org.cloudfoundry.uaa.PaginatedResponse}.
      * @return a stream of <code>T</code> objects.
      */
-    @SuppressWarnings("rawtypes")
     public static <T, U extends org.cloudfoundry.uaa.PaginatedResponse<T>> Flux<T> requestUaaResources(Function<Integer, Mono<U>> pageSupplier) {
-        return pageSupplier
+        return requestUaaResources(pageSupplier, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Resources are emitted in page order as soon as each page arrives.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.uaa.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages requested concurrently or held ahead of the subscriber.
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    @SuppressWarnings("rawtypes")
+    public static <T, U extends org.cloudfoundry.uaa.PaginatedResponse<T>> Flux<T> requestUaaResources(Function<Integer, Mono<U>> pageSupplier, int concurrency) {
+        Function<Integer, Mono<U>> recordedPageSupplier = recorded("uaa", pageSupplier, concurrency);
+
+        return recordedPageSupplier
             .apply(1)
-            .flatMap(requestUaaAdditionalPages(pageSupplier))
-            .flatMapIterable(org.cloudfoundry.uaa.PaginatedResponse::getResources);
+            .flatMap(requestUaaAdditionalPages(recordedPageSupplier, concurrency))
+            .flatMapIterable(org.cloudfoundry.uaa.PaginatedResponse::getResources, 1);
+    }
+
+    private static <T> Function<Integer, Mono<T>> recorded(String api, Function<Integer, Mono<T>> pageSupplier, int concurrency) {
+        if (!PAGE_FETCH_EVENT.isEnabled()) {
+            return pageSupplier;
+        }
+
+        return page -> Mono.defer(() -> {
+            FlightRecorderEvent event = PAGE_FETCH_EVENT.begin()
+                .set(0, api)
+                .set(1, page)
+                .set(2, concurrency);
+
+            return pageSupplier.apply(page)
+                .doOnError(t -> event.set(3, t.getClass().getName()))
+                .doFinally(signal -> event.commit());
+        });
     }
 
-    private static <T> Function<T, Flux<T>> requestAdditionalPages(Function<Integer, Mono<T>> pageSupplier, Function<T, Integer> totalPagesSupplier) {
+    private static <T> Function<T, Flux<T>> requestAdditionalPages(Function<Integer, Mono<T>> pageSupplier, Function<T, Integer> totalPagesSupplier, int concurrency) {
         return response -> {
             Integer totalPages = Optional.ofNullable(totalPagesSupplier.apply(response)).orElse(1);
 
             return Flux
                 .range(2, totalPages - 1)
-                .flatMap(pageSupplier)
-                .startWith(response)
-                .buffer()
-                .flatMapIterable(d -> d);
+                .flatMapSequential(pageSupplier, concurrency, 1)
+                .startWith(response);
         };
     }
 
-    private static <T extends org.cloudfoundry.client.v2.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV2AdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
-        return requestAdditionalPages(pageSupplier, response -> response.getTotalPages());
+    private static <T extends org.cloudfoundry.client.v2.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV2AdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency) {
+        return requestAdditionalPages(pageSupplier, response -> response.getTotalPages(), concurrency);
     }
 
-    private static <T extends org.cloudfoundry.client.v3.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV3AdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
-        return requestAdditionalPages(pageSupplier, response -> response.getPagination().getTotalPages());
+    private static <T extends org.cloudfoundry.client.v3.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV3AdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency) {
+        return requestAdditionalPages(pageSupplier, response -> response.getPagination().getTotalPages(), concurrency);
     }
 
-    private static <T extends org.cloudfoundry.uaa.PaginatedResponse<?>> Function<T, Flux<T>> requestUaaAdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
+    private static <T extends org.cloudfoundry.uaa.PaginatedResponse<?>> Function<T, Flux<T>> requestUaaAdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency) {
         return response -> {
             Integer totalPages = (response.getTotalResults() - 1) / response.getItemsPerPage() + 1;
 
             return Flux
                 .range(1, totalPages - 1)
                 .map(page -> 1 + (page * response.getItemsPerPage()))
-                .flatMap(pageSupplier)
-                .startWith(response)
-                .buffer()
-                .flatMapIterable(d -> d);
+                .flatMapSequential(pageSupplier, concurrency, 1)
+                .startWith(response);
         };
     }
 
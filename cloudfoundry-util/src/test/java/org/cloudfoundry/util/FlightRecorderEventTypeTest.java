@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public final class FlightRecorderEventTypeTest {
+
+    private static final String NAME = "org.cloudfoundry.Test";
+
+    private final FlightRecorderEventType eventType = FlightRecorderEventType.create(NAME, "Test", "A test event",
+        FlightRecorderEventType.field("name", "Name", String.class),
+        FlightRecorderEventType.timespan("latency", "Latency"));
+
+    @Test
+    public void notRecording() {
+        assertFalse(this.eventType.isEnabled());
+
+        this.eventType.begin()
+            .set(0, "test-name")
+            .set(1, 1_000L)
+            .commit();
+    }
+
+    @Test
+    public void recording() throws Exception {
+        Class<?> recordingType = loadClass("jdk.jfr.Recording");
+        assumeTrue("jdk.jfr is not available", recordingType != null);
+
+        Object recording = recordingType.getConstructor().newInstance();
+        Path file = Files.createTempFile("flight-recorder-event-type-test", ".jfr");
+
+        try {
+            recordingType.getMethod("enable", String.class).invoke(recording, NAME);
+            recordingType.getMethod("start").invoke(recording);
+
+            assertTrue(this.eventType.isEnabled());
+
+            this.eventType.begin()
+                .set(0, "test-name")
+                .set(1, 1_000L)
+                .commit();
+
+            recordingType.getMethod("stop").invoke(recording);
+            recordingType.getMethod("dump", Path.class).invoke(recording, file);
+
+            Class<?> recordedEventType = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Method getEventType = recordedEventType.getMethod("getEventType");
+            Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+            Method getLong = recordedEventType.getMethod("getLong", String.class);
+            Method getString = recordedEventType.getMethod("getString", String.class);
+
+            int count = 0;
+            for (Object event : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class).invoke(null, file)) {
+                if (NAME.equals(getName.invoke(getEventType.invoke(event)))) {
+                    assertEquals("test-name", getString.invoke(event, "name"));
+                    assertEquals(1_000L, getLong.invoke(event, "latency"));
+                    count++;
+                }
+            }
+
+            assertEquals(1, count);
+        } finally {
+            recordingType.getMethod("close").invoke(recording);
+            Files.deleteIfExists(file);
+        }
+
+        assertFalse(this.eventType.isEnabled());
+    }
+
+    @Test
+    public void undefined() {
+        FlightRecorderEventType eventType = FlightRecorderEventType.create("org.cloudfoundry.Undefined", "Undefined", "An event with an unsupported field",
+            FlightRecorderEventType.field("value", "Value", Object.class));
+
+        assertFalse(eventType.isEnabled());
+
+        eventType.begin()
+            .set(0, new Object())
+            .commit();
+    }
+
+    private static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+}
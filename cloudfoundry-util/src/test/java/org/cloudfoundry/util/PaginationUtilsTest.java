@@ -42,6 +42,8 @@ import java.util.concurrent.TimeoutException;
 
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public final class PaginationUtilsTest {
@@ -65,6 +67,33 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV2ResourcesCancel() throws InterruptedException, TimeoutException {
+        Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
+
+        requestListSpaces(spaces, 1, 3);
+        requestListSpaces(spaces, 2, 3);
+        requestListSpaces(spaces, 3, 3);
+
+        PaginationUtils
+            .requestClientV2Resources(page -> spaces
+                .list(ListSpacesRequest.builder()
+                    .page(page)
+                    .build()))
+            .take(1)
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        verify(spaces, never()).list(ListSpacesRequest.builder()
+            .page(2)
+            .build());
+        verify(spaces, never()).list(ListSpacesRequest.builder()
+            .page(3)
+            .build());
+    }
+
     @Test
     public void requestClientV2ResourcesEmpty() throws InterruptedException, TimeoutException {
         Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
@@ -81,6 +110,26 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV2ResourcesOrdered() throws InterruptedException, TimeoutException {
+        Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
+
+        requestListSpaces(spaces, 1, 3);
+        requestListSpaces(spaces, 2, 3, Duration.ofMillis(200));
+        requestListSpaces(spaces, 3, 3);
+
+        PaginationUtils
+            .requestClientV2Resources(page -> spaces
+                .list(ListSpacesRequest.builder()
+                    .page(page)
+                    .build()), 2)
+            .map(resource -> resource.getEntity().getName())
+            .as(StepVerifier::create)
+            .expectNext("1", "2", "3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void requestClientV3Empty() throws InterruptedException, TimeoutException {
         Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
@@ -182,6 +231,10 @@ public final class PaginationUtilsTest {
     }
 
     private static void requestListSpaces(Spaces spaces, Integer page, Integer totalPages) {
+        requestListSpaces(spaces, page, totalPages, Duration.ZERO);
+    }
+
+    private static void requestListSpaces(Spaces spaces, Integer page, Integer totalPages, Duration delay) {
         when(spaces
             .list(ListSpacesRequest.builder()
                 .page(page)
@@ -194,7 +247,8 @@ public final class PaginationUtilsTest {
                             .build())
                         .build())
                     .totalPages(totalPages)
-                    .build()));
+                    .build())
+                .delaySubscription(delay));
     }
 
     private static void requestListSpacesEmpty(Spaces spaces) {